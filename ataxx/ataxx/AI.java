@@ -4,142 +4,454 @@
 
 package ataxx;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
-import static ataxx.PieceColor.*;
-import static java.lang.Math.min;
-import static java.lang.Math.max;
-
-/** A Player that computes its own moves.
+/** A Player that computes its own moves by alpha-beta search.
  *  @author Jerome Rufin
  */
-class AI extends Player {
+class AI extends Engine {
 
-    /** Maximum minimax search depth before going to static evaluation. */
+    /** Maximum minimax search depth before going to static evaluation,
+     *  when there is no time limit. */
     private static final int MAX_DEPTH = 4;
-    /** A position magnitude indicating a win (for red if positive, blue
-     *  if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
-    /** A magnitude greater than a normal value. */
-    private static final int INFTY = Integer.MAX_VALUE;
+
+    /** Number of positions after which an endgame solve is abandoned. */
+    static final long SOLVE_NODE_LIMIT = 200_000;
+
+    /** Number of empty squares at or below which I try to prove a win.
+     *  With more, a quick proof is rare, and trying costs more than it
+     *  gains. */
+    static final int PROOF_EMPTIES = 12;
+
+    /** Size in megabytes of the table of my proof-number searches, which
+     *  are short. */
+    private static final int PROOF_HASH_SIZE = 1;
 
     /** A new AI for GAME that will play MYCOLOR. SEED is used to initialize
      *  a random-number generator for use in move computations.  Identical
      *  seeds produce identical behaviour. */
     AI(Game game, PieceColor myColor, long seed) {
         super(game, myColor);
+        _table = new TranspositionTable(game.hashSize());
+        _searchers = new Searcher[0];
     }
 
     @Override
-    boolean isAuto() {
-        return true;
+    void reportStatistics() {
+        System.err.printf("[Search: depth %d, %d nodes (%d in "
+                          + "quiescence), %d threads]%n",
+                          _depthReached, _nodes, _quiescenceNodes,
+                          game().threads());
+        System.err.printf("[Transpositions: %s]%n", _table.statistics());
+        if (_solveNodes > 0) {
+            System.err.printf("[Endgame: %s, %d nodes]%n",
+                              OUTCOMES[_solveOutcome + 1], _solveNodes);
+        }
+        if (_proofNodes > 0) {
+            System.err.printf("[Proof: %s, %d nodes]%n",
+                              _proved ? "win" : "none", _proofNodes);
+        }
+        if (_pvLength > 0) {
+            StringBuilder pv = new StringBuilder();
+            for (int i = 0; i < _pvLength; i += 1) {
+                pv.append(i == 0 ? "" : " ").append(_pv[i]);
+            }
+            System.err.printf("[PV: %s]%n", pv);
+        }
+        if (_pondered != null) {
+            System.err.printf("[Ponder: %s on %s, depth %d]%n",
+                              _ponderHit ? "hit" : "miss", _pondered,
+                              _ponderDepth);
+        }
     }
 
+    /** Return a move for me from position BOARD0, assuming that it is my
+     *  move and there is a move.  Searches to depth 1, 2, ... in turn,
+     *  each time trying the best move of the previous iteration first,
+     *  until reaching depth() or, if the game has a time limit, until
+     *  time runs out, in which case the unfinished iteration is
+     *  abandoned.  When the game calls for more than one thread, the
+     *  extra threads search the same position in the same way, starting
+     *  at alternating depths, and stop when the first thread is done.
+     *  They help only by filling the transposition table that all the
+     *  threads share (this is "lazy SMP"); the move is the first
+     *  thread's.  Before all this, if few enough squares are empty,
+     *  tries to solve the game from BOARD0, and if the solver proves a
+     *  win or a draw, plays the move that achieves it instead.  Failing
+     *  that, tries briefly to prove that I can force a win, and if so,
+     *  plays the winning move.  Any pondering (see startPondering) is
+     *  stopped first.  The transposition table is kept from one search
+     *  to the next (see newGame).  If BOARD0 is the position my last
+     *  principal variation expected, the search also keeps the history
+     *  counts and tries the move it expected first.  Otherwise, the
+     *  counts were gathered for another line of play and are cleared, so
+     *  that the search orders moves as if it were my first, and the
+     *  choice among equally good moves does not depend on the line of
+     *  play I expected. */
     @Override
-    String getMove() {
-        if (!getBoard().canMove(myColor())) {
-            game().reportMove(Move.pass(), myColor());
-            return "-";
-        }
-        Main.startTiming();
-        Move move = findMove();
-        Main.endTiming();
-        game().reportMove(move, myColor());
-        return move.toString();
-    }
-
-    /** Return a move for me from the current position, assuming there
-     *  is a move. */
-    private Move findMove() {
-        Board b = new Board(getBoard());
-        _lastFoundMove = null;
-        if (myColor() == RED) {
-            minMax(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
-        } else {
-            minMax(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
-        }
-        return _lastFoundMove;
-    }
-
-    /** The move found by the last call to the findMove method
-     *  above. */
-    private Move _lastFoundMove;
-
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _foundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _foundMove. If the game is over
-     *  on BOARD, does not set _foundMove. */
-    private int minMax(Board board, int depth, boolean saveMove, int sense,
-                       int alpha, int beta) {
-        /* We use WINNING_VALUE + depth as the winning value so as to favor
-         * wins that happen sooner rather than later (depth is larger the
-         * fewer moves have been made. */
-        if (depth == 0 || board.getWinner() != null) {
-            return staticScore(board, WINNING_VALUE + depth);
-        }
-
-        Move best;
-        best = null;
-        int bestScore;
-        bestScore = 0;
-
-        if (sense == 1) {
-            bestScore = -INFTY;
-            int tempScore = 0;
-            HashMap<Move, Board> futureBoards = board.futureBoards(RED);
-            for (Map.Entry<Move, Board> set: futureBoards.entrySet()) {
-                tempScore = minMax(set.getValue(),
-                        depth - 1, false, -1, alpha, beta);
-                alpha = max(alpha, tempScore);
-                if (beta <= alpha) {
-                    break;
-                }
-                if (tempScore > bestScore) {
-                    bestScore = tempScore;
-                    best = set.getKey();
-                }
+    Move findMove(Board board0) {
+        stopPondering();
+        _ponderHit =
+            _ponderMove != null && _ponderKey == board0.zobristKey();
+        _pondered = _ponderMove;
+        _ponderMove = null;
+        Move expected = expectedMove(board0, 1);
+        _depthReached = 0;
+        _nodes = _quiescenceNodes = 0;
+        _solveNodes = _proofNodes = 0;
+        if (board0.legalMoves(myColor(), _rootMoves) == 1) {
+            findPrincipalVariation(board0, _rootMoves[0], _depth);
+            return _rootMoves[0];
+        }
+        int limit = game().timeLimit();
+        int maxDepth = limit > 0 ? Searcher.MAX_SEARCH_DEPTH : _depth;
+        long deadline = limit > 0
+            ? System.currentTimeMillis() + limit : Long.MAX_VALUE;
+        Move solved = solveEndgame(board0);
+        if (solved != null) {
+            findPrincipalVariation(board0, solved, _depth);
+            return solved;
+        }
+        Move proved = proveWin(board0);
+        if (proved != null) {
+            findPrincipalVariation(board0, proved, _depth);
+            return proved;
+        }
+        setThreads(game().threads());
+        _table.newSearch();
+        if (expected == null) {
+            for (Searcher searcher : _searchers) {
+                searcher.clearHistory();
             }
         }
+        setUpSearch(board0, maxDepth, deadline, expected);
+        Move best = runSearch();
+        for (Searcher searcher : _searchers) {
+            _nodes += searcher.nodes();
+            _quiescenceNodes += searcher.quiescenceNodes();
+        }
+        _depthReached = _searchers[0].depthReached();
+        findPrincipalVariation(board0, best, _depthReached);
+        return best;
+    }
+
+    /** Set my principal variation to BEST, the move I chose from BOARD0,
+     *  followed by the best moves that my table records for the
+     *  positions after it, up to LENGTH moves in all.  When BEST was
+     *  found other than by a search (as the only move, or by the solver
+     *  or proof search), the table still holds what earlier searches
+     *  expected to follow, so the variation can carry on from there. */
+    private void findPrincipalVariation(Board board0, Move best,
+                                        int length) {
+        Board board = new Board(board0);
+        Move move = best;
+        _pvLength = 0;
+        while (move != null && _pvLength < length
+               && board.getWinner() == null && board.legalMove(move)) {
+            board.makeMove(move);
+            _pv[_pvLength] = move;
+            _pvKeys[_pvLength] = board.zobristKey();
+            _pvLength += 1;
+            move = TranspositionTable.move(_table.probe(board.zobristKey()));
+        }
+    }
 
-        if (sense == -1) {
-            bestScore = INFTY;
-            int tempScore = 0;
-            HashMap<Move, Board> futureBoards = board.futureBoards(BLUE);
-            for (Map.Entry<Move, Board> set : futureBoards.entrySet()) {
-                tempScore = minMax(set.getValue(),
-                        depth - 1, false, 1, alpha, beta);
-                beta = min(beta, tempScore);
-                if (beta <= alpha) {
-                    break;
-                }
-                if (tempScore < bestScore) {
-                    bestScore = tempScore;
-                    best = set.getKey();
-                }
+    /** Return the move K+1 in my principal variation, if BOARD is the
+     *  position after its first K moves, and otherwise null. */
+    private Move expectedMove(Board board, int k) {
+        if (k < _pvLength - 1 && _pvKeys[k] == board.zobristKey()) {
+            return _pv[k + 1];
+        }
+        return null;
+    }
+
+    /** Return my principal variation: the move found by my last search
+     *  and the best play that it expects to follow. */
+    Move[] principalVariation() {
+        return Arrays.copyOf(_pv, _pvLength);
+    }
+
+    /** Forget everything I have learned from earlier searches: my
+     *  transposition tables, history counts, and principal variation.
+     *  Stops any pondering first. */
+    @Override
+    void newGame() {
+        stopPondering();
+        _table.clear();
+        for (Searcher searcher : _searchers) {
+            searcher.clearHistory();
+        }
+        _pvLength = 0;
+        _ponderMove = null;
+        if (_solver != null) {
+            _solver.clear();
+        }
+        if (_proofSearch != null) {
+            _proofSearch.clear();
+        }
+    }
+
+    /** Prepare my Searchers to search BOARD0 to depths up to MAXDEPTH,
+     *  stopping at time DEADLINE if not before, with the game's current
+     *  settings, trying EXPECTED (if not null) first.  Each gets its own
+     *  copy of BOARD0. */
+    private void setUpSearch(Board board0, int maxDepth, long deadline,
+                             Move expected) {
+        for (int k = 0; k < _searchers.length; k += 1) {
+            _searchers[k].setUp(new Board(board0), 1 + k % 2, maxDepth,
+                                deadline);
+            _searchers[k].setExpectedMove(expected);
+            _searchers[k].setPruning(game().reduction(), game().futility());
+            _searchers[k].setQuiescence(game().quiescence());
+        }
+    }
+
+    /** Carry out the search last set up, with my first Searcher in this
+     *  thread and the others in helper threads, which are stopped when
+     *  the first is done, and return the first Searcher's move. */
+    private Move runSearch() {
+        Thread[] helpers = new Thread[_searchers.length - 1];
+        for (int k = 0; k < helpers.length; k += 1) {
+            helpers[k] = new Thread(_searchers[k + 1]);
+            helpers[k].setDaemon(true);
+            helpers[k].start();
+        }
+        _searchers[0].run();
+        for (int k = 1; k < _searchers.length; k += 1) {
+            _searchers[k].stop();
+        }
+        try {
+            for (Thread helper : helpers) {
+                helper.join();
             }
+        } catch (InterruptedException excp) {
+            throw new Error("unexpected interrupt");
+        }
+        return _searchers[0].bestMove();
+    }
+
+    /** If the game calls for pondering, start searching, in the
+     *  background, the position after the reply I expect to my last move
+     *  (the next in my principal variation), as if it were my move
+     *  there, until stopPondering is called.  The search has no depth or
+     *  time limit, and fills my transposition table.  If my opponent
+     *  does play that reply (a "ponder hit"), my next findMove finds
+     *  what it needs mostly already there.  Does nothing if the game is
+     *  over or I expect no reply. */
+    @Override
+    void startPondering() {
+        stopPondering();
+        Board board = new Board(getBoard());
+        if (!game().ponder() || board.getWinner() != null
+            || board.whoseMove() == myColor()) {
+            return;
+        }
+        Move reply = expectedMove(board, 0);
+        if (reply == null || !board.legalMove(reply)) {
+            return;
+        }
+        board.makeMove(reply);
+        if (board.getWinner() != null || !board.canMove(myColor())) {
+            return;
+        }
+        setThreads(game().threads());
+        _table.newSearch();
+        setUpSearch(board, Searcher.MAX_SEARCH_DEPTH, Long.MAX_VALUE,
+                    expectedMove(board, 1));
+        _ponderKey = board.zobristKey();
+        _ponderMove = reply;
+        _ponderer = new Thread(this::runSearch);
+        _ponderer.setDaemon(true);
+        _ponderer.start();
+    }
+
+    @Override
+    void stopPondering() {
+        if (_ponderer == null) {
+            return;
+        }
+        for (Searcher searcher : _searchers) {
+            searcher.stop();
+        }
+        try {
+            _ponderer.join();
+        } catch (InterruptedException excp) {
+            throw new Error("unexpected interrupt");
         }
+        _ponderer = null;
+        _ponderDepth = _searchers[0].depthReached();
+    }
+
+    /** Return the reply to my last move on which I last pondered, or
+     *  null if I have not pondered since my last search. */
+    Move ponderMove() {
+        return _ponderMove;
+    }
 
-        if (saveMove) {
-            _lastFoundMove = best;
+    /** Return true iff my last search was of the position on which I had
+     *  pondered. */
+    boolean ponderHit() {
+        return _ponderHit;
+    }
+
+    /** Return a move from BOARD0 that wins or draws with best play, if
+     *  BOARD0 has at most game().endgame() empty squares and my solver
+     *  shows within SOLVE_NODE_LIMIT positions that there is one, and
+     *  otherwise null. */
+    private Move solveEndgame(Board board0) {
+        if (Long.bitCount(board0.empties()) > game().endgame()) {
+            return null;
+        }
+        if (_solver == null) {
+            _solver = new Solver(game().hashSize());
         }
-        return bestScore;
+        int outcome =
+            _solver.solveOutcome(new Board(board0), SOLVE_NODE_LIMIT);
+        _solveNodes = _solver.nodes();
+        if (outcome == Solver.UNKNOWN) {
+            _solveOutcome = -1;
+            return null;
+        }
+        if (myColor() == PieceColor.BLUE) {
+            outcome = -outcome;
+        }
+        _solveOutcome = outcome + 1;
+        return outcome >= 0 ? _solver.bestMove() : null;
     }
 
-    /** Return a heuristic value for BOARD.  This value is +- WINNINGVALUE in
-     *  won positions, and 0 for ties. */
-    private int staticScore(Board board, int winningValue) {
-        PieceColor winner = board.getWinner();
-        if (winner != null) {
-            return switch (winner) {
-            case RED -> winningValue;
-            case BLUE -> -winningValue;
-            default -> 0;
-            };
+    /** Return a move from BOARD0 with which I can force a win, if BOARD0
+     *  has at most PROOF_EMPTIES empty squares and a proof-number search
+     *  of at most game().proofNodes() positions finds one, and otherwise
+     *  null. */
+    private Move proveWin(Board board0) {
+        if (game().proofNodes() <= 0
+            || Long.bitCount(board0.empties()) > PROOF_EMPTIES) {
+            return null;
+        }
+        if (_proofSearch == null) {
+            _proofSearch = new ProofSearch(PROOF_HASH_SIZE);
         }
-        return board.redPieces() - board.bluePieces();
+        int result = _proofSearch.prove(new Board(board0), myColor(),
+                                        game().proofNodes());
+        _proofNodes = _proofSearch.nodes();
+        _proved = result == ProofSearch.PROVEN;
+        return _proved ? _proofSearch.winningMove() : null;
     }
+
+    /** Make sure I have exactly THREADS Searchers. */
+    private void setThreads(int threads) {
+        if (_searchers.length != threads) {
+            _searchers = new Searcher[threads];
+            for (int k = 0; k < threads; k += 1) {
+                _searchers[k] = new Searcher(_table);
+            }
+        }
+    }
+
+    /** Return the depth to which I search when there is no time limit. */
+    int depth() {
+        return _depth;
+    }
+
+    /** Set depth() to DEPTH, which must be between 1 and
+     *  Searcher.MAX_SEARCH_DEPTH. */
+    void setDepth(int depth) {
+        assert 1 <= depth && depth <= Searcher.MAX_SEARCH_DEPTH;
+        _depth = depth;
+    }
+
+    /** Return the number of positions visited by all threads in my last
+     *  search. */
+    @Override
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of those positions visited by the quiescence
+     *  searches at the horizon of my last search. */
+    long quiescenceNodes() {
+        return _quiescenceNodes;
+    }
+
+    /** The depth to which I search when there is no time limit. */
+    private int _depth = MAX_DEPTH;
+
+    /** Depth of the last iteration completed by the first thread in my
+     *  last search. */
+    private int _depthReached;
+
+    /** Number of positions visited by all threads in my last search. */
+    private long _nodes;
+
+    /** Number of those positions visited in quiescence searches. */
+    private long _quiescenceNodes;
+
+    /** Descriptions of the outcomes of endgame solves, indexed by
+     *  _solveOutcome + 1. */
+    private static final String[] OUTCOMES = {
+        "unsolved", "loss", "draw", "win",
+    };
+
+    /** Number of positions visited by the endgame solve of my last
+     *  search, or 0 if there was none. */
+    private long _solveNodes;
+
+    /** Outcome for me of the endgame solve of my last search: 0 for a
+     *  loss, 1 for a draw, 2 for a win, or -1 if it was abandoned. */
+    private int _solveOutcome;
+
+    /** Solver for endgames, created when first needed. */
+    private Solver _solver;
+
+    /** Number of positions visited by the proof-number search of my last
+     *  search, or 0 if there was none. */
+    private long _proofNodes;
+
+    /** True iff that proof-number search proved a win for me. */
+    private boolean _proved;
+
+    /** Proof-number search for quick wins, created when first needed. */
+    private ProofSearch _proofSearch;
+
+    /** My principal variation (see principalVariation) is
+     *  _pv[0 .. _pvLength-1]. */
+    private final Move[] _pv = new Move[Searcher.MAX_SEARCH_DEPTH];
+
+    /** Number of moves in my principal variation. */
+    private int _pvLength;
+
+    /** _pvKeys[k] is the Zobrist key of the position after the first k+1
+     *  moves of my principal variation. */
+    private final long[] _pvKeys = new long[Searcher.MAX_SEARCH_DEPTH];
+
+    /** The thread in which I am pondering, or null if I am not. */
+    private Thread _ponderer;
+
+    /** The reply on which I last pondered, or null if I have not
+     *  pondered since my last search. */
+    private Move _ponderMove;
+
+    /** Zobrist key of the position on which I last pondered. */
+    private long _ponderKey;
+
+    /** Depth of the last iteration completed when I last pondered. */
+    private int _ponderDepth;
+
+    /** The reply on which I pondered before my last search, or null if I
+     *  did not ponder. */
+    private Move _pondered;
+
+    /** True iff my last search was of the position on which I had
+     *  pondered. */
+    private boolean _ponderHit;
+
+    /** Buffer for the moves from the position given to findMove. */
+    private final Move[] _rootMoves = new Move[Board.MAX_MOVES];
+
+    /** Results of searches of positions reached in the current search,
+     *  shared by all my Searchers. */
+    private final TranspositionTable _table;
+
+    /** The searches carried out for me, one per thread. */
+    private Searcher[] _searchers;
 }
@@ -0,0 +1,153 @@
+package ataxx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static ataxx.PieceColor.*;
+
+/** Tests of the AI class.
+ *  @author Jerome Rufin
+ */
+public class AITest {
+
+    /** Return a game, never played, in which AIs ponder iff PONDER. */
+    private static Game game(boolean ponder) {
+        Game game = new Game(null, (b) -> { }, new TextReporter(), false);
+        game.setHashSize(1);
+        game.setPonder(ponder);
+        return game;
+    }
+
+    /** Return an AI playing red in GAME, after it has made its first
+     *  move on GAME's board. */
+    private static AI firstMove(Game game) {
+        AI ai = new AI(game, RED, 1);
+        ai.setDepth(3);
+        game.makeMove(ai.findMove(game.getBoard()).toString());
+        return ai;
+    }
+
+    @Test
+    public void testPonderHit() throws InterruptedException {
+        Game game = game(true);
+        AI ai = firstMove(game);
+        ai.startPondering();
+        Move reply = ai.ponderMove();
+        assertNotNull("no reply to ponder on", reply);
+        assertTrue("illegal reply", game.getBoard().legalMove(reply));
+        Thread.sleep(50);
+        ai.stopPondering();
+        game.makeMove(reply.toString());
+        Move move = ai.findMove(game.getBoard());
+        assertTrue("no ponder hit", ai.ponderHit());
+        assertTrue("illegal move after ponder hit",
+                   game.getBoard().legalMove(move));
+    }
+
+    @Test
+    public void testPonderMiss() {
+        Game game = game(true);
+        AI ai = firstMove(game);
+        ai.startPondering();
+        Move reply = ai.ponderMove();
+        assertNotNull("no reply to ponder on", reply);
+        Move[] moves = new Move[Board.MAX_MOVES];
+        game.getBoard().legalMoves(BLUE, moves);
+        Move other = moves[0] == reply ? moves[1] : moves[0];
+        ai.stopPondering();
+        game.makeMove(other.toString());
+        Move move = ai.findMove(game.getBoard());
+        assertFalse("ponder hit on a different reply", ai.ponderHit());
+        assertTrue("illegal move after ponder miss",
+                   game.getBoard().legalMove(move));
+    }
+
+    @Test
+    public void testNoPonderWhenOff() {
+        Game game = game(false);
+        AI ai = firstMove(game);
+        ai.startPondering();
+        assertNull("pondered when off", ai.ponderMove());
+    }
+
+    @Test
+    public void testNewGameForgets() {
+        Game game = game(false);
+        AI ai = firstMove(game);
+        Move[] pv = ai.principalVariation();
+        assertTrue("principal variation too short", pv.length >= 2);
+        assertEquals("principal variation does not start with the move",
+                     game.getBoard().allMoves().get(0), pv[0]);
+        ai.newGame();
+        assertEquals("principal variation kept by newGame", 0,
+                     ai.principalVariation().length);
+    }
+
+    @Test
+    public void testKeptBetweenMoves() {
+        Game game = game(false);
+        AI ai = firstMove(game);
+        Move[] pv = ai.principalVariation();
+        game.makeMove(pv[1].toString());
+        Move move = ai.findMove(game.getBoard());
+        assertTrue("illegal move from kept tables",
+                   game.getBoard().legalMove(move));
+        assertEquals("principal variation does not start with the move",
+                     move, ai.principalVariation()[0]);
+    }
+
+    @Test
+    public void testUnexpectedReplyActsAsNew() {
+        Game game = game(false);
+        for (String block : new String[] { "c2", "c3", "a4" }) {
+            game.block(block);
+        }
+        game.makeMove("a7-a6");
+        AI ai = new AI(game, BLUE, 1);
+        game.makeMove(ai.findMove(game.getBoard()).toString());
+        assertTrue("reply expected", ai.principalVariation()[1]
+                   != Move.move('a', '6', 'b', '6'));
+        game.makeMove("a6-b6");
+        AI fresh = new AI(game, BLUE, 1);
+        assertEquals("move depends on the earlier search",
+                     fresh.findMove(new Board(game.getBoard())),
+                     ai.findMove(game.getBoard()));
+    }
+
+    @Test
+    public void testKeptAfterOnlyMove() {
+        Game game = game(false);
+        AI ai = new AI(game, RED, 1);
+        ai.setDepth(3);
+        Board board = new Board("7/7/7/7/bbb4/bbb4/r1bbbbb r 0");
+        Move move = ai.findMove(board);
+        assertEquals("wrong only move", Move.move('a', '1', 'b', '1'), move);
+        Move[] pv = ai.principalVariation();
+        assertTrue("principal variation lost", pv.length >= 1);
+        assertEquals("principal variation does not start with the move",
+                     move, pv[0]);
+    }
+
+    @Test
+    public void testPonderingCancelled() {
+        ArrayDeque<String> commands = new ArrayDeque<>(Arrays.asList(
+            "ponder on", "g1-f2", "undo", "g1-f1", "new", "g1-g2", "quit"));
+        Game game = new Game((prompt) -> commands.poll(), (b) -> { },
+                             new TextReporter(), false);
+        game.setHashSize(1);
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            assertEquals("game failed", 0, game.play());
+        } finally {
+            System.setOut(out);
+        }
+        assertTrue("commands left over", commands.isEmpty());
+    }
+
+}
@@ -0,0 +1,199 @@
+package ataxx;
+
+/** A benchmark of the AI's search.  Searches each of a fixed set of
+ *  positions to a fixed depth and reports the number of positions
+ *  visited, the time taken, and the resulting speed in nodes per second,
+ *  so that changes to the search can be compared.  Then, from each
+ *  position, plays the first two moves of the principal variation found
+ *  and times searching the result to the same depth twice: with a new
+ *  AI, and with the AI that searched the position before and so already
+ *  has much of the result in its tables (the time-to-depth gain from
+ *  keeping them between moves).  Finally, times making and undoing each
+ *  legal move in the same positions, the innermost operation of the
+ *  search.  Usage:
+ *      java ataxx.Bench [ DEPTH [ THREADS ] ]
+ *  where DEPTH (default 4) is the search depth and THREADS (default 1)
+ *  the number of threads searching.
+ *  @author Jerome Rufin
+ */
+class Bench {
+
+    /** The positions searched.  Each is a list of blocked squares (set
+     *  along with their reflections) followed by "/" and the moves that
+     *  lead to the position from the initial one. */
+    static final String[] POSITIONS = {
+        "/",
+        "/ g1-f1 a1-b1 g1-f2 a1-b2 f1-d2 g7-e5",
+        "c3 / g1-f1 g7-f7 f1-g2 a1-b1 f1-e2 a1-b2 g2-f3 f7-f6 e2-d3 b1-c1"
+        + " d3-d2 f7-g6",
+        "b2 d4 / a7-b5 g7-g6 b5-c6 g6-f7 b5-b7 a1-b1 b7-c5 g6-g5 g1-f1"
+        + " g5-e4 c5-d6 e4-f4 g1-e1 e4-e2 c6-a4 f4-g5 d6-e6 e2-d1 c5-b4"
+        + " e2-e3",
+        "/ a7-a5 g7-g6 a5-a6 g7-f6 g1-g2 a1-b2 g2-f1 b2-a2 a6-b5 g6-g5"
+        + " a6-b6 b2-c3 g1-e2 c3-a4 b6-c6 g5-f4 b6-c7 g5-e5 c7-d7 f4-e3"
+        + " c6-d6 b2-b3 e5-d5 a1-b1 c6-c4 b2-a3 a6-b4 f4-g3",
+        "c4 / g1-f1 g7-f6 a7-a6 a1-b1 a6-b6 g7-g6 b6-c7 f6-e6 f1-d2 a1-c3"
+        + " c7-e5 c3-b3 e6-d7 d2-c2 d7-d6 c2-b4 d6-c5 b1-a2 b4-a5 g7-f7"
+        + " b4-a4 a2-b2 a7-b7 f7-e7 b6-c6 d2-f1 a5-b5 b3-a3 c5-d5 f1-g2"
+        + " c5-d4 b1-c2 c6-c7 g1-f2 e5-g4 c3-d2",
+        "a4 d2 / a7-a5 a1-b2 a5-c7 b2-c1 c7-b7 b2-a3 b7-a7 b2-c3 a7-a5"
+        + " c3-b3 a5-a6 b2-a2 b7-a7 b2-c2 c7-d7 c3-d3 c7-e6 c3-b1 e6-c5"
+        + " b3-b4 g1-g2 d3-c3 g2-e3 c5-d4 a6-b6 c3-c4 g1-g2 c5-c6 g1-f1"
+        + " c1-d1 a6-b5 e3-f2 c4-d5 e3-e4 c4-e5 f2-f3 e5-e6 d3-c4 d7-c7"
+        + " d3-e1 e6-e7 d4-d3 e5-f6 e1-e2",
+    };
+
+    /** Number of times makeUndo makes and undoes each move. */
+    static final int MAKE_UNDO_ROUNDS = 20000;
+
+    /** Run the benchmark with arguments ARGS, as described above. */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Game game = new Game(null, (b) -> { }, new TextReporter(), false);
+        if (args.length > 1) {
+            game.setThreads(Integer.parseInt(args[1]));
+        }
+        run(game, depth, false);
+        run(game, depth, true);
+        reuse(game, depth, false);
+        reuse(game, depth, true);
+        makeUndo(false);
+        makeUndo(true);
+    }
+
+    /** Search each of POSITIONS to DEPTH with AIs of GAME, printing the
+     *  results iff REPORT.  An unreported run warms up the Java runtime
+     *  so that the reported times reflect compiled code. */
+    static void run(Game game, int depth, boolean report) {
+        long totalNodes, totalQuiescence, totalTime;
+        totalNodes = totalQuiescence = totalTime = 0;
+        if (report) {
+            System.out.printf("Threads: %d%n", game.threads());
+            System.out.printf("Position  Depth       Nodes  Quiescence"
+                              + "     Msec         NPS  Move%n");
+        }
+        for (int i = 0; i < POSITIONS.length; i += 1) {
+            Board board = position(POSITIONS[i]);
+            AI ai = new AI(game, board.whoseMove(), 0);
+            ai.setDepth(depth);
+            long start = System.nanoTime();
+            Move move = ai.findMove(board);
+            long time = (System.nanoTime() - start) / 1000000;
+            if (report) {
+                System.out.printf("%8d  %5d  %10d  %10d  %7d  %10d  %s%n",
+                                  i + 1, depth, ai.nodes(),
+                                  ai.quiescenceNodes(), time,
+                                  nps(ai.nodes(), time), move);
+            }
+            totalNodes += ai.nodes();
+            totalQuiescence += ai.quiescenceNodes();
+            totalTime += time;
+        }
+        if (report) {
+            System.out.printf("   Total         %10d  %10d  %7d  %10d%n",
+                              totalNodes, totalQuiescence, totalTime,
+                              nps(totalNodes, totalTime));
+        }
+    }
+
+    /** From each of POSITIONS, search to DEPTH with an AI of GAME, make
+     *  the first two moves of its principal variation, and search the
+     *  resulting position to DEPTH again, both with a new AI and with
+     *  the same one, printing the times taken iff REPORT.  As for run,
+     *  an unreported run warms up the Java runtime. */
+    static void reuse(Game game, int depth, boolean report) {
+        long totalCold, totalWarm;
+        totalCold = totalWarm = 0;
+        if (report) {
+            System.out.printf("Position  Depth  Cold msec  Warm msec"
+                              + "   Gain%n");
+        }
+        for (int i = 0; i < POSITIONS.length; i += 1) {
+            Board board = position(POSITIONS[i]);
+            AI warm = new AI(game, board.whoseMove(), 0);
+            warm.setDepth(depth);
+            warm.findMove(board);
+            Move[] pv = warm.principalVariation();
+            if (pv.length < 2) {
+                continue;
+            }
+            board.makeMove(pv[0]);
+            board.makeMove(pv[1]);
+            if (board.getWinner() != null
+                || !board.canMove(board.whoseMove())) {
+                continue;
+            }
+            AI cold = new AI(game, board.whoseMove(), 0);
+            cold.setDepth(depth);
+            long start = System.nanoTime();
+            cold.findMove(board);
+            long coldTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            warm.findMove(board);
+            long warmTime = System.nanoTime() - start;
+            if (report) {
+                System.out.printf("%8d  %5d  %9.1f  %9.1f  %5.1fx%n",
+                                  i + 1, depth, coldTime / 1e6,
+                                  warmTime / 1e6,
+                                  (double) coldTime / Math.max(1, warmTime));
+            }
+            totalCold += coldTime;
+            totalWarm += warmTime;
+        }
+        if (report) {
+            System.out.printf("   Total         %9.1f  %9.1f  %5.1fx%n",
+                              totalCold / 1e6, totalWarm / 1e6,
+                              (double) totalCold / Math.max(1, totalWarm));
+        }
+    }
+
+    /** Make and undo each legal move in each of POSITIONS, repeatedly,
+     *  printing the average time for one move and its undo iff REPORT.
+     *  As for run, an unreported run warms up the Java runtime. */
+    static void makeUndo(boolean report) {
+        Move[] moves = new Move[Board.MAX_MOVES];
+        long pairs, time;
+        pairs = time = 0;
+        for (String desc : POSITIONS) {
+            Board board = position(desc);
+            int n = board.legalMoves(board.whoseMove(), moves);
+            long start = System.nanoTime();
+            for (int k = 0; k < MAKE_UNDO_ROUNDS; k += 1) {
+                for (int i = 0; i < n; i += 1) {
+                    board.makeMove(moves[i]);
+                    board.undo();
+                }
+            }
+            time += System.nanoTime() - start;
+            pairs += (long) n * MAKE_UNDO_ROUNDS;
+        }
+        if (report) {
+            System.out.printf("Make/undo: %d pairs, %.1f nsec/pair%n",
+                              pairs, (double) time / pairs);
+        }
+    }
+
+    /** Return the number of nodes per second when searching NODES nodes
+     *  takes MSEC milliseconds. */
+    static long nps(long nodes, long msec) {
+        return nodes * 1000 / Math.max(1, msec);
+    }
+
+    /** Return the position described by DESC, in the format of
+     *  POSITIONS. */
+    static Board position(String desc) {
+        Board board = new Board();
+        boolean blocks = true;
+        for (String word : desc.trim().split("\\s+")) {
+            if (word.equals("/")) {
+                blocks = false;
+            } else if (blocks) {
+                board.setBlock(word);
+            } else {
+                board.makeMove(word);
+            }
+        }
+        return board;
+    }
+
+}
@@ -4,17 +4,22 @@
 
 package ataxx;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Stack;
 import java.util.Formatter;
+import java.util.Random;
 
 import java.util.function.Consumer;
 
 import static ataxx.PieceColor.*;
+import static ataxx.Geometry.*;
 import static ataxx.GameException.error;
+import static java.lang.Math.min;
 
 /** An Ataxx board.   The squares are labeled by column (a char value between
  *  'a' - 2 and 'g' + 2) and row (a char value between '1' - 2 and '7'
@@ -40,111 +45,74 @@ import static ataxx.GameException.error;
 class Board {
 
     /** Number of squares on a side of the board. */
-    static final int SIDE = Move.SIDE;
+    static final int SIDE = Geometry.SIDE;
 
     /** Length of a side + an artificial 2-deep border region.
      * This is unrelated to a move that is an "extend". */
-    static final int EXTENDED_SIDE = Move.EXTENDED_SIDE;
+    static final int EXTENDED_SIDE = Geometry.EXTENDED_SIDE;
+
+    /** An upper bound on the number of moves available to one side in
+     *  any position: each piece can reach at most 24 squares. */
+    static final int MAX_MOVES = SIDE * SIDE * 24;
 
     /** Number of consecutive non-extending moves before game ends. */
     static final int JUMP_LIMIT = 25;
 
-    /** Number of valid cols in board. */
-    private static final char[] COLS = {'a', 'b', 'c', 'd', 'e', 'f', 'g'};
-
-    /** Number of valid rows in board. */
-    private static final char[] ROWS = {'1', '2', '3', '4', '5', '6', '7'};
-
-    /** Create HashMap for all values mapped to ordered index. */
-    private void mappedBoardValues() {
-        _boardMap = new HashMap<>();
-        for (int i = 0; i < COLS.length; i += 1) {
-            _boardMap.put(COLS[i], i);
-            _boardMap.put(ROWS[i], i);
-
-        }
-    }
-
-    /** Create HashMap for all values mapped to linearized values. */
-    private void mappedLinearizedMoves() {
-        _linearizedMap = new HashMap<>();
-        for (int i = 0; i < COLS.length; i += 1) {
-            for (int j = 0; j < ROWS.length; j += 1) {
-                String s = "" + COLS[i] + ROWS[j];
-                _linearizedMap.put(index(COLS[i], ROWS[j]), s);
-            }
-        }
-    }
-
-    /** Get all index values in board. */
-    private void allBoardValues() {
-        _allBoardValues = new ArrayList<>();
-        for (char c: COLS) {
-            for (char r: ROWS) {
-                _allBoardValues.add(index(c, r));
-            }
-        }
-    }
+    /** Initial capacity of the arrays that record information for each
+     *  move made. */
+    private static final int HISTORY_SIZE = 64;
 
     /** A new, cleared board in the initial configuration. */
     Board() {
-        _board = new PieceColor[EXTENDED_SIDE * EXTENDED_SIDE];
-        allBoardValues();
-        mappedBoardValues();
-        mappedLinearizedMoves();
         setNotifier(NOP);
         clear();
     }
 
-    /** A board whose initial contents are copied from BOARD0, but whose
-     *  undo history is clear, and whose notifier does nothing. */
+    /** A board whose contents and undo history are copied from BOARD0,
+     *  so that it can undo BOARD0's moves as well as its own, but whose
+     *  notifier does nothing. */
     Board(Board board0) {
-        _board = board0._board.clone();
-        incrPieces(BLUE, board0.bluePieces());
-        incrPieces(RED, board0.redPieces());
+        _red = board0._red;
+        _blue = board0._blue;
+        _blocked = board0._blocked;
+        _key = board0._key;
         _allMoves = new ArrayList<>(board0._allMoves);
+        _priorRed = board0._priorRed.clone();
+        _priorBlue = board0._priorBlue.clone();
+        _priorKey = board0._priorKey.clone();
+        _priorJumps = board0._priorJumps.clone();
         _numJumps = board0._numJumps;
-        _undoSquares = new Stack<>();
-        _undoPieces = new Stack<>();
         _whoseMove = board0._whoseMove;
+        _winner = board0._winner;
         setNotifier(NOP);
     }
 
-    /** Return the linearized index of square COL ROW. */
-    static int index(char col, char row) {
-        return (row - '1' + 2) * EXTENDED_SIDE + (col - 'a' + 2);
-    }
-
-    /** Return the linearized index of the square that is DC columns and DR
-     *  rows away from the square with index SQ. */
-    static int neighbor(int sq, int dc, int dr) {
-        return sq + dc + dr * EXTENDED_SIDE;
+    /** A board in the position described by POSITION, in the notation
+     *  produced by toPosition, with no moves made, and whose notifier
+     *  does nothing. */
+    Board(String position) {
+        setNotifier(NOP);
+        clear();
+        setPosition(position);
     }
 
     /** Clear me to my starting state, with pieces in their initial
      *  positions and no blocks. */
     void clear() {
         _winner = null;
+        _key = 0;
         _whoseMove = RED;
         _allMoves = new ArrayList<>();
-        _undoSquares = new Stack<>();
-        _undoPieces = new Stack<>();
-        _totalOpen = SIDE * SIDE - redPieces() - bluePieces();
-        for (int i = 0; i < EXTENDED_SIDE * EXTENDED_SIDE; i += 1) {
-            if (_allBoardValues.contains(i)) {
-                unrecordedSet(i, EMPTY);
-            } else {
-                unrecordedSet(i, BLOCKED);
-            }
-        }
-        unrecordedSet('a', '1', BLUE);
-        unrecordedSet('g', '7', BLUE);
-        incrPieces(BLUE, -bluePieces());
-        incrPieces(BLUE, 2);
-        unrecordedSet('a', '7', RED);
-        unrecordedSet('g', '1', RED);
-        incrPieces(RED, -redPieces());
-        incrPieces(RED, 2);
+        _priorRed = new long[HISTORY_SIZE];
+        _priorBlue = new long[HISTORY_SIZE];
+        _priorKey = new long[HISTORY_SIZE];
+        _priorJumps = new int[HISTORY_SIZE];
+        _numJumps = 0;
+        _red = _blue = _blocked = 0;
+        set('a', '1', BLUE);
+        set('g', '7', BLUE);
+        set('a', '7', RED);
+        set('g', '1', RED);
 
         announce();
     }
@@ -157,11 +125,6 @@ class Board {
         return _winner;
     }
 
-    /** Return linearizedMap. */
-    HashMap<Integer, String> linearizedMap() {
-        return _linearizedMap;
-    }
-
     /** Return number of red pieces on the board. */
     int redPieces() {
         return numPieces(RED);
@@ -174,80 +137,96 @@ class Board {
 
     /** Return number of COLOR pieces on the board. */
     int numPieces(PieceColor color) {
-        return _numPieces[color.ordinal()];
+        return Long.bitCount(pieces(color));
     }
 
-    /** Increment numPieces(COLOR) by K. */
-    private void incrPieces(PieceColor color, int k) {
-        _numPieces[color.ordinal()] += k;
+    /** Return the mask of squares occupied by COLOR pieces (RED or BLUE). */
+    long pieces(PieceColor color) {
+        return color == RED ? _red : _blue;
+    }
+
+    /** Return the mask of empty squares. */
+    long empties() {
+        return ALL & ~(_red | _blue | _blocked);
+    }
+
+    /** Return the number of empty squares reachable in one move by
+     *  some piece of color WHO. */
+    int mobility(PieceColor who) {
+        return Long.bitCount(reach(pieces(who)) & empties());
+    }
+
+    /** Return the number of pieces that MOVE would capture if made by the
+     *  player to move. */
+    int captures(Move move) {
+        if (move.isPass()) {
+            return 0;
+        }
+        return Long.bitCount(ADJACENT[BIT[move.toIndex()]]
+                             & pieces(_whoseMove.opposite()));
     }
 
     /** The current contents of square CR, where 'a'-2 <= C <= 'g'+2, and
      *  '1'-2 <= R <= '7'+2.  Squares outside the range a1-g7 are all
      *  BLOCKED.  Returns the same value as get(index(C, R)). */
     PieceColor get(char c, char r) {
-        return _board[index(c, r)];
+        return get(index(c, r));
     }
 
     /** Return the current contents of square with linearized index SQ. */
     PieceColor get(int sq) {
-        return _board[sq];
+        int b = BIT[sq];
+        if (b < 0) {
+            return BLOCKED;
+        }
+        long m = 1L << b;
+        if ((_red & m) != 0) {
+            return RED;
+        } else if ((_blue & m) != 0) {
+            return BLUE;
+        } else if ((_blocked & m) != 0) {
+            return BLOCKED;
+        } else {
+            return EMPTY;
+        }
     }
 
     /** Set get(C, R) to V, where 'a' <= C <= 'g', and
-     *  '1' <= R <= '7'. This operation is undoable. */
+     *  '1' <= R <= '7'. */
     private void set(char c, char r, PieceColor v) {
         set(index(c, r), v);
     }
 
-    /** Set square with linearized index SQ to V.  This operation is
-     *  undoable. */
+    /** Set square with linearized index SQ to V, updating the Zobrist
+     *  key.  Changes made by a move are undone by restoring the state
+     *  recorded by addMove, so nothing is recorded here. */
     private void set(int sq, PieceColor v) {
-        addUndo(sq);
-        _board[sq] = v;
-    }
-
-    /** Set square at C R to V (not undoable). This is used for changing
-     * contents of the board without updating the undo stacks. */
-    private void unrecordedSet(char c, char r, PieceColor v) {
-        _board[index(c, r)] = v;
-    }
-
-    /** Set square at linearized index SQ to V (not undoable). This is used
-     * for changing contents of the board without updating the undo stacks. */
-    private void unrecordedSet(int sq, PieceColor v) {
-        _board[sq] = v;
+        int b = BIT[sq];
+        _key ^= SQUARE_KEYS[get(sq).ordinal()][b] ^ SQUARE_KEYS[v.ordinal()][b];
+        long m = 1L << b;
+        _red &= ~m;
+        _blue &= ~m;
+        _blocked &= ~m;
+        if (v == RED) {
+            _red |= m;
+        } else if (v == BLUE) {
+            _blue |= m;
+        } else if (v == BLOCKED) {
+            _blocked |= m;
+        }
     }
 
-    /** Return true iff MOVE is legal on the current board. */
+    /** Return true iff MOVE is legal on the current board.  Only a
+     *  pass needs to know whether the player can move at all. */
     boolean legalMove(Move move) {
         if (move == null) {
             return false;
         }
-        if (canMove(_whoseMove) && move.isPass()) {
-            return false;
-        }
-
-        if (
-                (!canMove(_whoseMove) && move.isPass())
-                        || (move.isExtend() && _board[move.toIndex()]
-                        == EMPTY && _board[move.fromIndex()] == _whoseMove)
-                        || (move.isJump() && _board[move.toIndex()]
-                        == EMPTY && _board[move.fromIndex()] == _whoseMove)) {
-            return true;
-        }
-
-        if (_board[move.fromIndex()] == BLOCKED
-                || _board[move.fromIndex()] == EMPTY
-                || _board[move.toIndex()] == BLOCKED
-                || _board[move.toIndex()] != EMPTY) {
-            return false;
-        }
-
-        if (_board[move.fromIndex()] != _whoseMove) {
-            return false;
+        if (move.isPass()) {
+            return !canMove(_whoseMove);
         }
-        return false;
+        return get(move.toIndex()) == EMPTY
+            && get(move.fromIndex()) == _whoseMove;
     }
 
     /** Return true iff C0 R0 - C1 R1 is legal on the current board. */
@@ -258,42 +237,20 @@ class Board {
     /** Return true iff player WHO can move, ignoring whether it is
      *  that player's move and whether the game is over. */
     boolean canMove(PieceColor who) {
-        for (int i = index('a', '1'); i <= index('g', '7'); i += 1) {
-            if (get(i) == who) {
-                for (int c = -2; c < 3; c += 1) {
-                    for (int r = -2; r < 3; r += 1) {
-                        if (get(neighbor(i, c, r)) == EMPTY) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        return (reach(pieces(who)) & empties()) != 0;
     }
 
-    /** Return all available moves that WHO can make, and the corresponding
-     * board that it would result to. */
+    /** Return all available moves that WHO can make that lead to
+     *  distinct positions (see legalMoves), and the corresponding
+     *  board that it would result to. */
     HashMap<Move, Board> futureBoards(PieceColor who) {
         HashMap<Move, Board> futureBoards = new HashMap<>();
-        for (int i = index('a', '1'); i <= index('g', '7'); i += 1) {
-            if (get(i) == who) {
-                for (int c = -2; c < 3; c += 1) {
-                    for (int r = -2; r < 3; r += 1) {
-                        if (get(neighbor(i, c, r)) == EMPTY) {
-                            Board futureBoard = new Board(this);
-                            String moveFrom = _linearizedMap.get(i);
-                            String moveTo = _linearizedMap.
-                                    get(neighbor(i, c, r));
-                            Move potentialMove = Move.move(moveFrom.charAt(0),
-                                    moveFrom.charAt(1), moveTo
-                                            .charAt(0), moveTo.charAt(1));
-                            futureBoard.makeMove(potentialMove);
-                            futureBoards.put(potentialMove, futureBoard);
-                        }
-                    }
-                }
-            }
+        Move[] moves = new Move[MAX_MOVES];
+        int n = legalMoves(who, moves);
+        for (int i = 0; i < n; i += 1) {
+            Board futureBoard = new Board(this);
+            futureBoard.makeMove(moves[i]);
+            futureBoards.put(moves[i], futureBoard);
         }
         if (futureBoards.size() == 0) {
             Board futureBoard = new Board(this);
@@ -304,6 +261,30 @@ class Board {
         return futureBoards;
     }
 
+    /** Store in MOVES[0 ..] the moves other than pass available to WHO
+     *  that lead to distinct positions, and return their number.  Since
+     *  all extends to the same square have the same result, there is
+     *  only one of them per empty square adjacent to a WHO piece (from
+     *  the first such piece); all jumps are included.  MOVES must have
+     *  room for MAX_MOVES entries.  Unlike futureBoards, this allocates
+     *  nothing, so that a search can walk the game tree with makeMove
+     *  and undo on one board. */
+    int legalMoves(PieceColor who, Move[] moves) {
+        int n = 0;
+        long empty = empties(), unextended = empty;
+        for (long from = pieces(who); from != 0; from &= from - 1) {
+            int b0 = Long.numberOfTrailingZeros(from);
+            long to = (ADJACENT[b0] & unextended) | (JUMPS[b0] & empty);
+            unextended &= ~ADJACENT[b0];
+            for (; to != 0; to &= to - 1) {
+                moves[n] = Move.move(SQUARE[b0],
+                                     SQUARE[Long.numberOfTrailingZeros(to)]);
+                n += 1;
+            }
+        }
+        return n;
+    }
+
     /** Return the color of the player who has the next move.  The
      *  value is arbitrary if the game is over. */
     PieceColor whoseMove() {
@@ -318,16 +299,10 @@ class Board {
 
     /** Return number of non-pass moves made in the current game since the
      *  last extend move added a piece to the board (or since the
-     *  start of the game). Used to detect end-of-game. */
+     *  start of the game). Used to detect end-of-game.  A pass neither
+     *  adds to this count nor resets it, so the game still ends after
+     *  JUMP_LIMIT jumps when one side can only pass. */
     int numJumps() {
-        _numJumps = 0;
-        for (int i = _allMoves.size() - 1; i >= 0; i -= 1) {
-            if (_allMoves.get(i).isJump()) {
-                _numJumps += 1;
-            } else {
-                return _numJumps;
-            }
-        }
         return _numJumps;
     }
 
@@ -361,26 +336,24 @@ class Board {
             pass();
             return;
         }
-        _allMoves.add(move);
-        startUndo();
+        addMove(move);
         PieceColor opponent = _whoseMove.opposite();
-        if (move.isExtend()) {
-            set(move.toIndex(), _whoseMove);
-            incrPieces(_whoseMove, 1);
-        } else {
-            set(move.toIndex(), _whoseMove);
+        set(move.toIndex(), _whoseMove);
+        if (move.isJump()) {
             set(move.fromIndex(), EMPTY);
         }
-        for (int i = -1; i < 2; i += 1) {
-            for (int j = -1; j < 2; j += 1) {
-                int neighborSquare = neighbor(move.toIndex(), i, j);
-                if (get(neighborSquare) == opponent) {
-                    set(neighborSquare, _whoseMove);
-                    incrPieces(_whoseMove, 1);
-                    incrPieces(opponent, -1);
-                }
-            }
+        long captured = ADJACENT[BIT[move.toIndex()]] & pieces(opponent);
+        for (; captured != 0; captured &= captured - 1) {
+            set(SQUARE[Long.numberOfTrailingZeros(captured)], _whoseMove);
         }
+        checkWinner();
+        setWhoseMove(opponent);
+        announce();
+    }
+
+    /** If the game is over, set the winner: the player with more pieces,
+     *  or EMPTY if they have the same number. */
+    private void checkWinner() {
         if (checkGameEnd()) {
             if (redPieces() > bluePieces()) {
                 _winner = RED;
@@ -390,15 +363,15 @@ class Board {
                 _winner = EMPTY;
             }
         }
-        _whoseMove = opponent;
-        announce();
     }
 
+    /** Return true iff the game is over: one side has no pieces, neither
+     *  side can move, or there have been JUMP_LIMIT jumps in a row. */
     boolean checkGameEnd() {
-        if (redPieces() == 0 || bluePieces() == 0) {
+        if (_red == 0 || _blue == 0) {
             return true;
         }
-        if (!canMove(RED) && !canMove(BLUE)) {
+        if ((reach(_red | _blue) & empties()) == 0) {
             return true;
         }
         if (numJumps() == JUMP_LIMIT) {
@@ -411,52 +384,59 @@ class Board {
      *  is legal to do so. Passing is undoable. */
     void pass() {
         assert !canMove(_whoseMove);
-        _allMoves.add(Move.pass());
-        startUndo();
-        _whoseMove = _whoseMove.opposite();
+        addMove(Move.pass());
+        setWhoseMove(_whoseMove.opposite());
         announce();
     }
 
     /** Undo the last move. */
     void undo() {
-        while (_undoSquares.peek() != null && _undoPieces.peek() != null) {
-            int undoSquare = _undoSquares.pop();
-            PieceColor undoColor = _undoPieces.pop();
-            unrecordedSet(undoSquare, undoColor);
-            if (undoColor == EMPTY && _allMoves.
-                    get(_allMoves.size() - 1).isExtend()) {
-                incrPieces(_whoseMove.opposite(), -1);
-            }
-            if (undoColor == _whoseMove) {
-                incrPieces(undoColor, 1);
-                incrPieces(undoColor.opposite(), -1);
-            }
-        }
-        _undoPieces.pop();
-        _undoSquares.pop();
+        int n = _allMoves.size() - 1;
+        _allMoves.remove(n);
+        _red = _priorRed[n];
+        _blue = _priorBlue[n];
+        _key = _priorKey[n];
+        _numJumps = _priorJumps[n];
         _whoseMove = _whoseMove.opposite();
-        _allMoves.remove(_allMoves.size() - 1);
         _winner = null;
         announce();
     }
 
-    /** Indicate beginning of a move in the undo stack. See the
-     * _undoSquares and _undoPieces instance variable comments for
-     * details on how the beginning of moves are marked. */
-    private void startUndo() {
-        _undoSquares.push(null);
-        _undoPieces.push(null);
+    /** Append MOVE to the list of moves made, recording the state that
+     *  undo will restore, and keeping numJumps() and the part of the
+     *  Zobrist key that records it up to date.  Passes do not count as
+     *  moves for numJumps(), so they neither add to it nor reset it. */
+    private void addMove(Move move) {
+        int n = _allMoves.size();
+        if (n == _priorKey.length) {
+            _priorRed = Arrays.copyOf(_priorRed, 2 * n);
+            _priorBlue = Arrays.copyOf(_priorBlue, 2 * n);
+            _priorKey = Arrays.copyOf(_priorKey, 2 * n);
+            _priorJumps = Arrays.copyOf(_priorJumps, 2 * n);
+        }
+        _priorRed[n] = _red;
+        _priorBlue[n] = _blue;
+        _priorKey[n] = _key;
+        _priorJumps[n] = _numJumps;
+        _allMoves.add(move);
+        if (!move.isPass()) {
+            _key ^= JUMP_KEYS[min(_numJumps, JUMP_LIMIT)];
+            _numJumps = move.isJump() ? _numJumps + 1 : 0;
+            _key ^= JUMP_KEYS[min(_numJumps, JUMP_LIMIT)];
+        }
     }
 
-    /** Add an undo action for changing SQ on current board. */
-    private void addUndo(int sq) {
-        _undoPieces.push(get(sq));
-        _undoSquares.push(sq);
+    /** Set the player to move next to WHO, updating the Zobrist key. */
+    private void setWhoseMove(PieceColor who) {
+        if (who != _whoseMove) {
+            _key ^= BLUE_TO_MOVE_KEY;
+        }
+        _whoseMove = who;
     }
 
     /** Return true iff it is legal to place a block at C R. */
     boolean legalBlock(char c, char r) {
-        return _board[(index(c, r))] == EMPTY && _allMoves.size() == 0;
+        return get(c, r) == EMPTY && _allMoves.size() == 0;
     }
 
     /** Return true iff it is legal to place a block at CR. */
@@ -473,29 +453,12 @@ class Board {
         if (!legalBlock(c, r)) {
             throw error("illegal block placement");
         }
-        int colIndex = _boardMap.get(c);
-        int rowIndex = _boardMap.get(r);
-        int colMirror = SIDE - colIndex - 1;
-        int rowMirror = SIDE - rowIndex - 1;
+        char cm = (char) ('a' + 'g' - c), rm = (char) ('1' + '7' - r);
         if (get(c, r) == EMPTY) {
-            if (c == 'd' && r == '4') {
-                unrecordedSet(COLS[colIndex], ROWS[rowIndex], BLOCKED);
-                _totalOpen -= 1;
-            } else if (c == 'd') {
-                unrecordedSet(COLS[colIndex], ROWS[rowIndex], BLOCKED);
-                unrecordedSet(COLS[colIndex], ROWS[rowMirror], BLOCKED);
-                _totalOpen -= 2;
-            } else if (r == '4') {
-                unrecordedSet(COLS[colIndex], ROWS[rowIndex], BLOCKED);
-                unrecordedSet(COLS[colMirror], ROWS[rowIndex], BLOCKED);
-                _totalOpen -= 2;
-            } else {
-                unrecordedSet(COLS[colIndex], ROWS[rowIndex], BLOCKED);
-                unrecordedSet(COLS[colIndex], ROWS[rowMirror], BLOCKED);
-                unrecordedSet(COLS[colMirror], ROWS[rowIndex], BLOCKED);
-                unrecordedSet(COLS[colMirror], ROWS[rowMirror], BLOCKED);
-                _totalOpen -= 4;
-            }
+            set(c, r, BLOCKED);
+            set(cm, r, BLOCKED);
+            set(c, rm, BLOCKED);
+            set(cm, rm, BLOCKED);
         }
         if (!canMove(RED) && !canMove(BLUE)) {
             _winner = EMPTY;
@@ -510,7 +473,16 @@ class Board {
 
     /** Return total number of unblocked squares. */
     int totalOpen() {
-        return _totalOpen;
+        return SIDE * SIDE - Long.bitCount(_blocked);
+    }
+
+    /** Return the Zobrist key of this position: a 64-bit hash of the
+     *  contents of all squares, the player to move, and numJumps().  It is
+     *  maintained incrementally as squares change and moves are made or
+     *  undone, so reading it is cheap.  Equal positions have equal keys;
+     *  unequal positions almost always have different ones. */
+    long zobristKey() {
+        return _key;
     }
 
     /** Return a list of all moves made since the last clear (or start of
@@ -519,6 +491,111 @@ class Board {
         return _allMoves;
     }
 
+    /** Return my position in a one-line notation (in the manner of FEN
+     *  for chess): the rows from 7 down to 1, separated by "/", each
+     *  giving its squares from column a to g as "r" (red), "b" (blue),
+     *  or "X" (block), with a digit standing for that many empty
+     *  squares; then, separated by spaces, "r" or "b" for the player to
+     *  move and numJumps().  For example, the initial position is
+     *  "r5b/7/7/7/7/7/b5r r 0".  The moves that led to the position are
+     *  not included. */
+    String toPosition() {
+        StringBuilder out = new StringBuilder();
+        for (char r = '7'; r >= '1'; r -= 1) {
+            int empty = 0;
+            for (char c = 'a'; c <= 'g'; c += 1) {
+                PieceColor v = get(c, r);
+                if (v == EMPTY) {
+                    empty += 1;
+                } else {
+                    if (empty > 0) {
+                        out.append(empty);
+                        empty = 0;
+                    }
+                    out.append(POSITION_CHARS.charAt(v.ordinal()));
+                }
+            }
+            if (empty > 0) {
+                out.append(empty);
+            }
+            out.append(r > '1' ? "/" : " ");
+        }
+        out.append(_whoseMove == RED ? "r " : "b ").append(_numJumps);
+        return out.toString();
+    }
+
+    /** Clear me and set up the position described by POSITION, as for
+     *  toPosition. */
+    private void setPosition(String position) {
+        String[] fields = position.trim().split("\\s+");
+        if (fields.length != 3) {
+            throw error("bad position: %s", position);
+        }
+        _red = _blue = _blocked = 0;
+        _key = 0;
+        char c = 'a', r = '7';
+        for (int i = 0; i < fields[0].length(); i += 1) {
+            char ch = fields[0].charAt(i);
+            int v = POSITION_CHARS.indexOf(ch);
+            if (ch == '/' && c == 'g' + 1 && r > '1') {
+                c = 'a';
+                r -= 1;
+            } else if (ch >= '1' && ch <= '7' && c + ch - '0' <= 'g' + 1) {
+                c += ch - '0';
+            } else if (v >= 0 && PieceColor.values()[v] != EMPTY
+                       && c <= 'g') {
+                set(c, r, PieceColor.values()[v]);
+                c += 1;
+            } else {
+                throw error("bad board in position: %s", position);
+            }
+        }
+        if (c != 'g' + 1 || r != '1') {
+            throw error("bad board in position: %s", position);
+        }
+        if (fields[1].equals("b")) {
+            setWhoseMove(BLUE);
+        } else if (!fields[1].equals("r")) {
+            throw error("bad player in position: %s", position);
+        }
+        int jumps;
+        try {
+            jumps = Integer.parseInt(fields[2]);
+        } catch (NumberFormatException excp) {
+            jumps = -1;
+        }
+        if (jumps < 0 || jumps > JUMP_LIMIT) {
+            throw error("bad jump count in position: %s", position);
+        }
+        _numJumps = jumps;
+        _key ^= JUMP_KEYS[_numJumps];
+        checkWinner();
+        announce();
+    }
+
+    /** Return the boards in the positions on the lines of INPUT, one per
+     *  line in the notation of toPosition, ignoring blank lines and lines
+     *  starting with "#".  This builds each board directly, so it is
+     *  much faster than replaying blocks and moves. */
+    static Board[] readPositions(Reader input) throws IOException {
+        BufferedReader lines = new BufferedReader(input);
+        ArrayList<Board> boards = new ArrayList<>();
+        int lineNum = 0;
+        for (String line = lines.readLine(); line != null;
+             line = lines.readLine()) {
+            lineNum += 1;
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                try {
+                    boards.add(new Board(line));
+                } catch (GameException excp) {
+                    throw error("line %d: %s", lineNum, excp.getMessage());
+                }
+            }
+        }
+        return boards.toArray(new Board[boards.size()]);
+    }
+
     @Override
     public String toString() {
         return toString(false);
@@ -530,12 +607,17 @@ class Board {
             return false;
         }
         Board other = (Board) obj;
-        return Arrays.equals(_board, other._board);
+        if (_key != other._key) {
+            return false;
+        }
+        return _red == other._red && _blue == other._blue
+            && _blocked == other._blocked && _whoseMove == other._whoseMove
+            && numJumps() == other.numJumps();
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(_board);
+        return Long.hashCode(_key);
     }
 
     /** Return a text depiction of the board.  If LEGEND, supply row and
@@ -584,41 +666,47 @@ class Board {
         _notifier.accept(this);
     }
 
+    /** The characters standing for the contents of squares in
+     *  toPosition, indexed by PieceColor ordinal (EMPTY has none). */
+    private static final String POSITION_CHARS = " Xrb";
+
     /** A notifier that does nothing. */
     private static final Consumer<Board> NOP = (s) -> { };
 
     /** Use _notifier.accept(this) to announce changes to this board. */
     private Consumer<Board> _notifier;
 
-    /** For reasons of efficiency in copying the board,
-     *  we use a 1D array to represent it, using the usual access
-     *  algorithm: row r, column c => index(r, c).
-     *
-     *  Next, instead of using a 7x7 board, we use an 11x11 board in
-     *  which the outer two rows and columns are blocks, and
-     *  row 2, column 2 actually represents row 0, column 0
-     *  of the real board.  As a result of this trick, there is no
-     *  need to special-case being near the edge: we don't move
-     *  off the edge because it looks blocked.
-     *
-     *  Using characters as indices, it follows that if 'a' <= c <= 'g'
-     *  and '1' <= r <= '7', then row r, column c of the board corresponds
-     *  to _board[(c -'a' + 2) + 11 (r - '1' + 2) ]. */
-    private final PieceColor[] _board;
+    /* The position is kept as three bitboards: 49-bit masks in which
+     * bit (r - '1') * SIDE + (c - 'a') stands for square c r.  Captures,
+     * mobility, and piece counts then reduce to mask operations and
+     * Long.bitCount.  Squares are still named externally by their
+     * linearized index on an 11x11 board in which the outer two rows and
+     * columns are blocks, and row 2, column 2 actually represents row 0,
+     * column 0 of the real board.  BIT and SQUARE convert between the
+     * two numberings; the border squares have no bit, and always read as
+     * BLOCKED. */
+
+    /** Squares occupied by red pieces. */
+    private long _red;
+    /** Squares occupied by blue pieces. */
+    private long _blue;
+    /** Blocked squares on the real board. */
+    private long _blocked;
+
+    /** The Zobrist key of this position (see zobristKey()). */
+    private long _key;
 
     /** Player that is next to move. */
     private PieceColor _whoseMove;
 
-    /** Number of consecutive non-extending moves since the
-     *  last clear or the beginning of the game. */
+    /** Number of consecutive jumps made since the last extend (passes
+     *  neither add to nor reset it), or since the last clear or the
+     *  beginning of the game. */
     private int _numJumps;
 
-    /** Total number of unblocked squares. */
-    private int _totalOpen;
-
-    /** Number of blue and red pieces, indexed by the ordinal positions of
-     *  enumerals BLUE and RED. */
-    private int[] _numPieces = new int[BLUE.ordinal() + 1];
+    /** The value of _numJumps before each of the moves in _allMoves was
+     *  made, so that undo can restore it without rescanning the moves. */
+    private int[] _priorJumps;
 
     /** Set to winner when game ends (EMPTY if tie).  Otherwise is null. */
     private PieceColor _winner;
@@ -627,22 +715,43 @@ class Board {
      *  the game. */
     private ArrayList<Move> _allMoves;
 
-    /* The undo stack. We keep a stack of squares that have changed and
-     * their previous contents.  Any given move may involve several such
-     * changes, so we mark the start of the changes for each move (including
-     * passes) with a null. */
-
-    /** Stack of linearized indices of squares that have been modified and
-     *  not undone. Nulls mark the beginnings of full moves. */
-    private Stack<Integer> _undoSquares;
-    /** Stack of pieces formally at corresponding squares in _UNDOSQUARES. */
-    private Stack<PieceColor> _undoPieces;
-    /** All available board values. */
-    private static ArrayList<Integer> _allBoardValues;
-    /** Hashmap for positions in board. */
-    private static HashMap<Character, Integer> _boardMap;
-    /** Hashmap for linearized positions in board. */
-    private static HashMap<Integer, String> _linearizedMap;
-
-
+    /* The undo log.  Rather than the individual squares a move changes,
+     * we record, for each move in _allMoves (including passes), the
+     * state of the board before it: _red, _blue, _key, and _numJumps.
+     * The entries for move #k are at index k of the arrays below and of
+     * _priorJumps, which grow as needed, so that making and undoing
+     * moves allocates nothing and involves no locking.  Blocks cannot
+     * change once there are moves, so _blocked needs no entries. */
+
+    /** The values of _red before each move in _allMoves. */
+    private long[] _priorRed;
+    /** The values of _blue before each move in _allMoves. */
+    private long[] _priorBlue;
+    /** The values of _key before each move in _allMoves. */
+    private long[] _priorKey;
+
+
+    /** Zobrist keys for the contents of each square, indexed by the
+     *  ordinal of the PieceColor and then by bit position.  The keys for
+     *  EMPTY are 0. */
+    private static final long[][] SQUARE_KEYS =
+        new long[PieceColor.values().length][SIDE * SIDE];
+    /** Zobrist keys for values of numJumps() up to JUMP_LIMIT.  The key
+     *  for 0 is 0. */
+    private static final long[] JUMP_KEYS = new long[JUMP_LIMIT + 1];
+    /** Zobrist key for positions in which blue is to move. */
+    private static final long BLUE_TO_MOVE_KEY;
+
+    static {
+        Random keys = new Random(0x5eed_a7a8L);
+        for (PieceColor v : new PieceColor[] { RED, BLUE, BLOCKED }) {
+            for (int b = 0; b < SIDE * SIDE; b += 1) {
+                SQUARE_KEYS[v.ordinal()][b] = keys.nextLong();
+            }
+        }
+        for (int n = 1; n <= JUMP_LIMIT; n += 1) {
+            JUMP_KEYS[n] = keys.nextLong();
+        }
+        BLUE_TO_MOVE_KEY = keys.nextLong();
+    }
 }
@@ -6,6 +6,10 @@ package ataxx;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+
 import static ataxx.PieceColor.*;
 import static org.junit.Assert.*;
 
@@ -349,12 +353,297 @@ public class BoardTest {
         assertEquals("wrong bluePieces", 12, b.bluePieces());
     }
 
+    @Test
+    public void testZobristKey() {
+        Board b0 = new Board();
+        long initial = b0.zobristKey();
+        makeMoves(b0, new String[] { "a7-a6", "a1-b1", "g1-f1", "g7-f6" });
+        Board b1 = new Board();
+        makeMoves(b1, new String[] { "g1-f1", "g7-f6", "a7-a6", "a1-b1" });
+        assertEquals("transposed positions have different keys",
+                b0.zobristKey(), b1.zobristKey());
+        assertEquals("transposed positions not equal", b0, b1);
+        assertEquals("transposed positions have different hashes",
+                b0.hashCode(), b1.hashCode());
+
+        Board b2 = new Board(b0);
+        assertEquals("copy has different key",
+                b0.zobristKey(), b2.zobristKey());
+        b2.makeMove('a', '6', 'a', '4');
+        assertNotEquals("jump did not change key",
+                b0.zobristKey(), b2.zobristKey());
+        b2.undo();
+        assertEquals("undo did not restore key",
+                b0.zobristKey(), b2.zobristKey());
+
+        makeMoves(b0, new String[] { "a7-b7", "a1-a2" });
+        makeMoves(b1, new String[] { "a7-c7", "a1-a2" });
+        assertNotEquals("different positions have equal keys",
+                b0.zobristKey(), b1.zobristKey());
+        for (int i = 0; i < 6; i += 1) {
+            b0.undo();
+        }
+        assertEquals("undo did not restore initial key",
+                initial, b0.zobristKey());
+
+        Board b3 = new Board();
+        b3.makeMove('a', '7', 'c', '7');
+        b3.makeMove('a', '1', 'c', '1');
+        Board b4 = new Board();
+        b4.makeMove('a', '7', 'c', '7');
+        b4.makeMove('a', '1', 'c', '1');
+        b4.makeMove('c', '7', 'a', '7');
+        b4.makeMove('c', '1', 'a', '1');
+        b4.makeMove('a', '7', 'c', '7');
+        b4.makeMove('a', '1', 'c', '1');
+        assertNotEquals("jump count not part of key",
+                b3.zobristKey(), b4.zobristKey());
+        assertNotEquals("jump count not part of equality", b3, b4);
+    }
+
+    /** Make 10000 jumps in a row (which is possible only because makeMove
+     *  does not refuse moves once the game is over), checking that the
+     *  time taken for a block of moves stays flat.  Compares the fastest
+     *  blocks from each half, so that one slow block does not matter. */
+    @Test
+    public void testLongJumpSequence() {
+        final int moves = 10000, block = 1000;
+        Board b = new Board();
+        long initial = b.zobristKey();
+        String[] jumps = { "a7-a5", "a1-a3", "a5-a7", "a3-a1" };
+        long[] times = new long[moves / block];
+        for (int i = 0; i < moves; i += 1) {
+            long start = System.nanoTime();
+            b.makeMove(jumps[i % jumps.length]);
+            times[i / block] += System.nanoTime() - start;
+            assertEquals("wrong numJumps", i + 1, b.numJumps());
+        }
+        long early, late;
+        early = late = Long.MAX_VALUE;
+        for (int k = 1; k < times.length; k += 1) {
+            if (k < times.length / 2) {
+                early = Math.min(early, times[k]);
+            } else {
+                late = Math.min(late, times[k]);
+            }
+        }
+        assertTrue("cost of a move grows with the number of jumps",
+                   late < 2 * early + 1000000);
+        for (int i = moves - 1; i >= 0; i -= 1) {
+            b.undo();
+            assertEquals("wrong numJumps after undo", i, b.numJumps());
+        }
+        assertEquals("undo did not restore key", initial, b.zobristKey());
+    }
+
+    @Test
+    public void testPassKeepsNumJumps() {
+        Board b = new Board();
+        b.setBlock('b', '1');
+        b.setBlock('c', '2');
+        b.setBlock('c', '1');
+        makeMoves(b, PASSGAME);
+        assertEquals("wrong numJumps", 3, b.numJumps());
+        assertFalse("blue can move", b.canMove(BLUE));
+        long key = b.zobristKey();
+        b.pass();
+        assertEquals("pass changed numJumps", 3, b.numJumps());
+        b.makeMove("f4-f6");
+        assertEquals("wrong numJumps after pass and jump", 4,
+                     b.numJumps());
+        b.undo();
+        b.undo();
+        assertEquals("undo of pass changed numJumps", 3, b.numJumps());
+        assertEquals("undo of pass changed key", key, b.zobristKey());
+        b.pass();
+        b.makeMove("f4-e4");
+        assertEquals("extend after pass did not reset numJumps", 0,
+                     b.numJumps());
+        b.undo();
+        b.undo();
+        String[] jumps = { "f4-f6", "f6-f4" };
+        for (int i = 0; b.numJumps() < Board.JUMP_LIMIT; i += 1) {
+            assertNull("game over before the jump limit", b.getWinner());
+            b.pass();
+            b.makeMove(jumps[i % 2]);
+        }
+        assertEquals("jump limit not enforced across passes", RED,
+                     b.getWinner());
+    }
+
+    @Test
+    public void testCaptures() {
+        Board b0 = new Board();
+        makeMoves(b0, new String[] { "a7-b6", "a1-b2", "b6-c5", "b2-c3" });
+        assertEquals(2, b0.captures(Move.move("c5-b3")));
+        assertEquals(1, b0.captures(Move.move("c5-c4")));
+        assertEquals(0, b0.captures(Move.move("g1-f2")));
+        assertEquals(0, b0.captures(Move.pass()));
+        b0.makeMove("c5-b3");
+        assertEquals(3, b0.captures(Move.move("a1-c2")));
+        assertEquals(0, b0.captures(Move.move("g7-f6")));
+    }
+
+    @Test
+    public void testPosition() {
+        assertEquals("r5b/7/7/7/7/7/b5r r 0", new Board().toPosition());
+        assertEquals(new Board(), new Board("r5b/7/7/7/7/7/b5r r 0"));
+        for (String desc : Bench.POSITIONS) {
+            Board b = Bench.position(desc);
+            Board b1 = new Board(b.toPosition());
+            assertEquals("position not restored: " + desc, b, b1);
+            assertEquals("wrong key: " + desc, b.zobristKey(),
+                         b1.zobristKey());
+            assertEquals("position not reproduced: " + desc,
+                         b.toPosition(), b1.toPosition());
+        }
+        Board b = new Board();
+        b.setBlock("c3");
+        makeMoves(b, new String[] { "a7-c7", "a1-b1", "g1-e1" });
+        assertEquals("2r3b/7/2X1X2/7/2X1X2/7/bb2r2 b 1", b.toPosition());
+
+        assertEquals(RED, new Board("3r3/7/7/7/7/7/7 b 0").getWinner());
+        assertEquals(EMPTY,
+                     new Board("r5b/7/7/7/7/7/b5r r 25").getWinner());
+        assertNull(new Board("r5b/7/7/7/7/7/b5r r 24").getWinner());
+        for (String bad : new String[] {
+                "r5b/7/7/7/7/7/b5r r", "r5b/7/7/7/7/7 r 0",
+                "r5b/7/7/7/7/7/b5r/7 r 0", "r6b/7/7/7/7/7/b5r r 0",
+                "r5b/7/7/7/7/7/b4r r 0", "r5q/7/7/7/7/7/b5r r 0",
+                "r5b/7/7/7/7/7/b5r x 0", "r5b/7/7/7/7/7/b5r r 26",
+                "r5b/7/7/7/7/7/b5r r -1", "r5b/70/7/7/7/7/b5r r 0" }) {
+            try {
+                new Board(bad);
+                fail("bad position accepted: " + bad);
+            } catch (GameException excp) {
+                /* Expected. */
+            }
+        }
+    }
+
+    @Test
+    public void testReadPositions() throws IOException {
+        Board[] boards = Board.readPositions(new StringReader(
+            "# Two positions.\n"
+            + "r5b/7/7/7/7/7/b5r r 0\n"
+            + "\n"
+            + "  2r3b/7/2X1X2/7/2X1X2/7/bb2r2 b 1  \n"));
+        assertEquals(2, boards.length);
+        assertEquals(new Board(), boards[0]);
+        assertEquals("2r3b/7/2X1X2/7/2X1X2/7/bb2r2 b 1",
+                     boards[1].toPosition());
+        try {
+            Board.readPositions(new StringReader("r5b/7/7/7/7/7/b5r r 0\n"
+                                                 + "r5b r 0\n"));
+            fail("bad position accepted");
+        } catch (GameException excp) {
+            assertTrue("line number not reported",
+                       excp.getMessage().startsWith("line 2:"));
+        }
+    }
+
+    @Test
+    public void testLegalMovesDistinct() {
+        Board b = new Board();
+        b.setBlock('c', '3');
+        Move[] moves = new Move[Board.MAX_MOVES];
+        for (String move : UNDO2MOVES) {
+            HashSet<Long> keys = new HashSet<>();
+            int n = b.legalMoves(b.whoseMove(), moves);
+            for (int i = 0; i < n; i += 1) {
+                assertTrue("illegal move generated", b.legalMove(moves[i]));
+                b.makeMove(moves[i]);
+                assertTrue("moves with the same result generated",
+                           keys.add(b.zobristKey()));
+                b.undo();
+            }
+            assertEquals("moves missing", scanPositions(b), keys);
+            if (b.legalMove(Move.move(move))) {
+                b.makeMove(move);
+            }
+        }
+    }
+
+    /** Return the Zobrist keys of the positions reachable from B by a
+     *  move other than pass, found by trying every pair of squares. */
+    private static HashSet<Long> scanPositions(Board b) {
+        HashSet<Long> keys = new HashSet<>();
+        for (char c0 : COLS) {
+            for (char r0 : ROWS) {
+                for (char c1 : COLS) {
+                    for (char r1 : ROWS) {
+                        Move move = Move.move(c0, r0, c1, r1);
+                        if (move != null && !move.isPass()
+                            && b.legalMove(move)) {
+                            b.makeMove(move);
+                            keys.add(b.zobristKey());
+                            b.undo();
+                        }
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    /** Return the number of empty squares within two rows and columns of
+     *  some WHO piece on B, found by scanning every square. */
+    private static int scanMobility(Board b, PieceColor who) {
+        int n = 0;
+        for (char c : COLS) {
+            for (char r : ROWS) {
+                if (b.get(c, r) != EMPTY) {
+                    continue;
+                }
+                boolean reached = false;
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    for (int dr = -2; dr <= 2; dr += 1) {
+                        if (b.get((char) (c + dc), (char) (r + dr)) == who) {
+                            reached = true;
+                        }
+                    }
+                }
+                n += reached ? 1 : 0;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void testMasks() {
+        Board b = new Board();
+        b.setBlock('c', '3');
+        b.setBlock('d', '6');
+        for (String move : UNDO2MOVES) {
+            for (PieceColor who : new PieceColor[] { RED, BLUE }) {
+                int mobility = scanMobility(b, who);
+                assertEquals("wrong mobility", mobility, b.mobility(who));
+                assertEquals("wrong canMove", mobility > 0, b.canMove(who));
+            }
+            assertEquals("wrong pass legality",
+                         scanMobility(b, b.whoseMove()) == 0,
+                         b.legalMove(Move.pass()));
+            if (b.legalMove(Move.move(move))) {
+                b.makeMove(move);
+            }
+        }
+        assertEquals("wrong total open", 43, b.totalOpen());
+    }
+
     private static final String[] GAME1 = {
         "a7-b7", "a1-a2",
         "a7-a6", "a2-a3",
         "a6-a5", "a3-a4"
     };
 
+    /** Moves after which blue (in the corner at a1, with blocks at b1, c1,
+     *  and c2) cannot move, the last three moves having been jumps. */
+    private static final String[] PASSGAME = {
+        "g1-g2", "a1-b2", "g1-f2", "a1-a2", "g1-e3", "b2-d2", "f2-d3",
+        "a2-c4", "d2-c3", "a1-b2", "d2-b3", "a1-a2", "c4-a3", "g7-f5",
+        "g2-f4"
+    };
+
     private static final String[] UNDO2MOVES = {
         "a7-a6", "a1-b1",
         "g1-f1", "g7-f6",
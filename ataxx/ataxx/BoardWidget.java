@@ -12,11 +12,13 @@ import java.awt.BasicStroke;
 
 import java.awt.event.MouseEvent;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import static ataxx.PieceColor.*;
+import static ataxx.Geometry.COL;
+import static ataxx.Geometry.ROW;
+import static ataxx.Geometry.SQUARE;
+import static ataxx.Geometry.SQUARES;
 import static ataxx.Utils.*;
 
 /** Widget for displaying an Ataxx board.
@@ -51,47 +53,14 @@ class BoardWidget extends Pad  {
     /** Stroke for blocks. */
     private static final BasicStroke BLOCK_STROKE = new BasicStroke(5.0f);
 
-    /** Number of valid cols in board. */
-    private static final char[] COLS = {'a', 'b', 'c', 'd', 'e', 'f', 'g'};
-
-    /** Number of valid rows in board. */
-    private static final char[] ROWS = {'7', '6', '5', '4', '3', '2', '1'};
-
-    /** Create HashMap for all values mapped to linearized values. */
-    private void mappedCenterPositions() {
-        _centerMap = new HashMap<>();
-        ArrayList<Integer[]> midPoints = new ArrayList<>();
-        for (int i = SQDIM / 2; i < SQDIM * SIDE; i += SQDIM) {
-            for (int j = SQDIM / 2; j < SQDIM * SIDE; j += SQDIM) {
-                Integer[] midPoint = new Integer[2];
-                midPoint[0] = i;
-                midPoint[1] = j;
-                midPoints.add(midPoint);
-            }
-        }
-
-        ArrayList<String> boardValues = new ArrayList<>();
-        for (int i = 0; i < ROWS.length; i += 1) {
-            for (int j = 0; j < COLS.length; j += 1) {
-                String s = "" + COLS[i] + ROWS[j];
-                boardValues.add(s);
-            }
-        }
-
-        for (int i = 0; i < boardValues.size(); i += 1) {
-            _centerMap.put(boardValues.get(i), midPoints.get(i));
-        }
-
-    }
-
     /** A new widget sending commands resulting from mouse clicks
      *  to COMMANDQUEUE. */
     BoardWidget(ArrayBlockingQueue<String> commandQueue) {
         _commandQueue = commandQueue;
-        mappedCenterPositions();
         setMouseHandler("click", this::handleClick);
         _dim = SQDIM * SIDE;
         _blockMode = false;
+        _model = new Board();
         setPreferredSize(_dim, _dim);
         setMinimumSize(_dim, _dim);
     }
@@ -113,8 +82,8 @@ class BoardWidget extends Pad  {
         g.setColor(BLANK_COLOR);
         g.fillRect(0, 0, _dim, _dim);
         int squareDiff = SQDIM / 2;
-        for (String s:_centerMap.keySet()) {
-            drawBlock(g, _centerMap.get(s)[0], _centerMap.get(s)[1],
+        for (int b = 0; b < SQUARES; b += 1) {
+            drawBlock(g, centerX(SQUARE[b]), centerY(SQUARE[b]),
                     LINE_COLOR, squareDiff, false);
         }
         if (_selectedCol != 0) {
@@ -123,24 +92,22 @@ class BoardWidget extends Pad  {
                     SQDIM * SIDE - (_selectedRow - '1')
                             * SQDIM - SQDIM, SQDIM, SQDIM);
         }
-        HashMap<Integer, String> allVals = _model.linearizedMap();
-        for (int i: allVals.keySet()) {
-            String val = allVals.get(i);
-            char boardCol = val.charAt(0);
-            char boardRow = val.charAt(1);
-            int x = _centerMap.get(val)[0];
-            int y = _centerMap.get(val)[1];
+        for (int b = 0; b < SQUARES; b += 1) {
+            int sq = SQUARE[b];
+            int x = centerX(sq);
+            int y = centerY(sq);
             int ovalX = x - (2 * PIECE_RADIUS / 2);
             int ovalY = y - (2 * PIECE_RADIUS / 2);
-            if (_model.get(boardCol, boardRow) == RED) {
+            PieceColor contents = _model.get(sq);
+            if (contents == RED) {
                 g.setColor(RED_COLOR);
                 g.drawOval(ovalX, ovalY, 2 * PIECE_RADIUS, 2 * PIECE_RADIUS);
                 g.fillOval(ovalX, ovalY, 2 * PIECE_RADIUS, 2 * PIECE_RADIUS);
-            } else if (_model.get(i) == BLUE) {
+            } else if (contents == BLUE) {
                 g.setColor(BLUE_COLOR);
                 g.drawOval(ovalX, ovalY, 2 * PIECE_RADIUS, 2 * PIECE_RADIUS);
                 g.fillOval(ovalX, ovalY, 2 * PIECE_RADIUS, 2 * PIECE_RADIUS);
-            } else if (_model.get(i) == BLOCKED) {
+            } else if (contents == BLOCKED) {
                 int squareBlockDiff = BLOCK_WIDTH / 2;
                 g.setColor(BLOCK_COLOR);
                 drawBlock(g, x, y, BLOCK_COLOR, squareBlockDiff, true);
@@ -149,6 +116,18 @@ class BoardWidget extends Pad  {
 
     }
 
+    /** Return the x coordinate of the center of the square with
+     *  linearized index SQ. */
+    private static int centerX(int sq) {
+        return (COL[sq] - 'a') * SQDIM + SQDIM / 2;
+    }
+
+    /** Return the y coordinate of the center of the square with
+     *  linearized index SQ. */
+    private static int centerY(int sq) {
+        return ('7' - ROW[sq]) * SQDIM + SQDIM / 2;
+    }
+
     /** Draw a block centered at (CX, CY) on G with COLOR,
      * SQUAREDIFF, and BLOCKSTROKE. */
     void drawBlock(Graphics2D g, int cx, int cy, Color
@@ -226,7 +205,7 @@ class BoardWidget extends Pad  {
     private int _dim;
 
     /** Model being displayed. */
-    private static Board _model;
+    private Board _model;
 
     /** Coordinates of currently selected square, or '\0' if no selection. */
     private char _selectedCol, _selectedRow;
@@ -236,7 +215,4 @@ class BoardWidget extends Pad  {
 
     /** Destination for commands derived from mouse clicks. */
     private ArrayBlockingQueue<String> _commandQueue;
-
-    /** Destination for commands derived from mouse clicks. */
-    private HashMap<String, Integer[]> _centerMap;
 }
@@ -17,8 +17,10 @@ class Command {
 
     /** A list of all commands. */
     private static final String[] COMMAND_NAMES = {
-        "auto", "block", "board", "dump", "help", "manual",
-        "new", "q", "quiet", "quit", "seed", "undo", "verbose",
+        "auto", "block", "board", "dump", "endgame", "futility", "help",
+        "manual", "new", "perft", "playouts", "ponder", "proof", "prove",
+        "q", "quiescence", "quiet", "quit", "reduce", "seed", "threads",
+        "time", "undo", "verbose",
     };
 
     /** Command types.  PIECEMOVE indicates a move of the form
@@ -27,10 +29,21 @@ class Command {
      *  programmer writes. */
     enum Type {
         COMMENT("#.*|$"),
-        AUTO("auto\\s+(red|blue)"),
+        AUTO("auto\\s+(red|blue)(?:\\s+(ai|mcts))?"),
         BLOCK("block\\s+([a-g][1-7])"),
         MANUAL("manual\\s+(red|blue)"),
         SEED("seed\\s+(\\d+)"),
+        TIME("time\\s+(\\d+)"),
+        THREADS("threads\\s+(\\d+)"),
+        REDUCE("reduce\\s+(\\d+)"),
+        FUTILITY("futility\\s+(\\d+)"),
+        QUIESCENCE("quiescence\\s+(\\d+)"),
+        ENDGAME("endgame\\s+(\\d+)"),
+        PROOF("proof\\s+(\\d+)"),
+        PONDER("ponder\\s+(on|off)"),
+        PLAYOUTS("playouts\\s+(\\d+)"),
+        PROVE("prove\\s+(red|blue)"),
+        PERFT("perft\\s+(\\d+)(\\s+divide)?(\\s+check)?"),
         START,
         /* Regular moves. */
         PIECEMOVE("(-|[a-g][1-7]-[a-g][1-7])"),
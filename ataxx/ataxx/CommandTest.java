@@ -31,8 +31,10 @@ public class CommandTest {
     }
 
     @Test public void testAUTO() {
-        check("auto red", AUTO, "red");
-        check("auto blue", AUTO, "blue");
+        check("auto red", AUTO, "red", null);
+        check("auto blue", AUTO, "blue", null);
+        check("auto red ai", AUTO, "red", "ai");
+        check("auto blue mcts", AUTO, "blue", "mcts");
         checkError("auto green");
         checkError("auto");
         checkError("auto red foo");
@@ -50,6 +52,80 @@ public class CommandTest {
         checkError("seed 142 foo");
     }
 
+    @Test public void testTIME() {
+        check("time 500", TIME, "500");
+        checkError("time");
+        checkError("time -1");
+        checkError("time 500 foo");
+    }
+
+    @Test public void testTHREADS() {
+        check("threads 4", THREADS, "4");
+        checkError("threads");
+        checkError("threads four");
+        checkError("threads 4 foo");
+    }
+
+    @Test public void testREDUCE() {
+        check("reduce 2", REDUCE, "2");
+        check("reduce 0", REDUCE, "0");
+        checkError("reduce");
+        checkError("reduce 2 foo");
+    }
+
+    @Test public void testFUTILITY() {
+        check("futility 1", FUTILITY, "1");
+        checkError("futility");
+        checkError("futility -1");
+    }
+
+    @Test public void testQUIESCENCE() {
+        check("quiescence 4", QUIESCENCE, "4");
+        checkError("quiescence");
+        checkError("quiescence four");
+    }
+
+    @Test public void testENDGAME() {
+        check("endgame 6", ENDGAME, "6");
+        checkError("endgame");
+        checkError("endgame -1");
+    }
+
+    @Test public void testPROOF() {
+        check("proof 5000", PROOF, "5000");
+        checkError("proof");
+        checkError("proof red");
+    }
+
+    @Test public void testPLAYOUTS() {
+        check("playouts 5000", PLAYOUTS, "5000");
+        checkError("playouts");
+        checkError("playouts many");
+    }
+
+    @Test public void testPONDER() {
+        check("ponder on", PONDER, "on");
+        check("ponder off", PONDER, "off");
+        checkError("ponder");
+        checkError("ponder maybe");
+    }
+
+    @Test public void testPROVE() {
+        check("prove red", PROVE, "red");
+        check("prove blue", PROVE, "blue");
+        checkError("prove");
+        checkError("prove green");
+    }
+
+    @Test public void testPERFT() {
+        check("perft 3", PERFT, "3", null, null);
+        check("perft 3 divide", PERFT, "3", " divide", null);
+        check("perft 3 check", PERFT, "3", null, " check");
+        check("perft 3 divide check", PERFT, "3", " divide", " check");
+        checkError("perft");
+        checkError("perft 3 check divide");
+    }
+
     @Test public void testSTART() {
         check("start", START);
         checkError("start foo");
@@ -0,0 +1,99 @@
+package ataxx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** A stress test of playing many games at once in one JVM.
+ *  @author Jerome Rufin
+ */
+public class ConcurrentGamesTest {
+
+    /** Number of games played. */
+    private static final int GAMES = 8;
+
+    /** Blocks placed in the games, so that they differ. */
+    private static final String[] BLOCKS = {
+        "b2", "c3", "c4", "d2", "b4", "c2", "d3", "b3",
+    };
+
+    /** Play game number K, between two AIs and starting with a block,
+     *  through Game.play, and return a record of its moves and result. */
+    private static String play(int k) {
+        ArrayDeque<String> commands = new ArrayDeque<>(Arrays.asList(
+            "block " + BLOCKS[k % BLOCKS.length], "auto red", "quit"));
+        StringBuilder record = new StringBuilder();
+        Reporter reporter = new Reporter() {
+            @Override
+            public void announceWin(PieceColor side) {
+                record.append(side).append(" wins.");
+            }
+
+            @Override
+            public void announceMove(Move move, PieceColor player) {
+                record.append(move).append(" ");
+            }
+
+            @Override
+            public void msg(String format, Object... args) {
+                record.append(String.format(format, args)).append(" ");
+            }
+
+            @Override
+            public void err(String format, Object... args) {
+                record.append("error: ")
+                    .append(String.format(format, args)).append(" ");
+            }
+        };
+        Game game = new Game((prompt) -> commands.poll(), (b) -> { },
+                             reporter, false);
+        game.setHashSize(1);
+        assertEquals("game failed", 0, game.play());
+        return record.toString();
+    }
+
+    @Test
+    public void testConcurrentGames() throws InterruptedException {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            String[] expected = new String[GAMES];
+            for (int k = 0; k < GAMES; k += 1) {
+                expected[k] = play(k);
+            }
+            String[] results = new String[GAMES];
+            Throwable[] failures = new Throwable[GAMES];
+            Thread[] threads = new Thread[GAMES];
+            for (int k = 0; k < GAMES; k += 1) {
+                int game = k;
+                threads[k] = new Thread(() -> {
+                    try {
+                        results[game] = play(game);
+                    } catch (Throwable excp) {
+                        failures[game] = excp;
+                    }
+                });
+                threads[k].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (int k = 0; k < GAMES; k += 1) {
+                assertNull("game " + k + " failed: " + failures[k],
+                           failures[k]);
+                assertTrue("game " + k + " did not finish: " + results[k],
+                           results[k].endsWith("wins."));
+                assertEquals("game " + k + " played differently when "
+                             + "concurrent", expected[k], results[k]);
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+}
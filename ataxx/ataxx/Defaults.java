@@ -12,4 +12,47 @@ class Defaults {
     /** Current version designator. */
     static final String VERSION = "Attax 3.0";
 
+    /** Default size of an AI's transposition table, in megabytes. */
+    static final int HASH_SIZE = 16;
+
+    /** Largest size of an AI's transposition table, in megabytes. */
+    static final int MAX_HASH_SIZE = 1024;
+
+    /** Default time an AI may spend choosing a move, in milliseconds.
+     *  0 means an AI searches to a fixed depth regardless of time. */
+    static final int TIME_LIMIT = 0;
+
+    /** Default number of threads with which an AI searches. */
+    static final int THREADS = 1;
+
+    /** Default reduction, in plies, of the depth to which an AI first
+     *  searches late moves that capture nothing.  0 means no reduction. */
+    static final int REDUCTION = 0;
+
+    /** Default number of levels above the horizon of an AI's search at
+     *  which it prunes moves that cannot gain enough pieces to matter.
+     *  0 means no pruning. */
+    static final int FUTILITY = 2;
+
+    /** Default maximum number of levels of the quiescence search at the
+     *  horizon of an AI's search, which looks only at moves that capture
+     *  many pieces.  0 means no quiescence search. */
+    static final int QUIESCENCE = 2;
+
+    /** Default number of empty squares at or below which an AI first
+     *  tries to solve the game exactly.  0 means it never does. */
+    static final int ENDGAME = 0;
+
+    /** Default number of positions an AI may visit trying to prove that
+     *  it can force a win before it searches as usual.  0 means it never
+     *  tries. */
+    static final int PROOF_NODES = 0;
+
+    /** Default number of playouts with which an MCTS player chooses a
+     *  move, when it has no time limit. */
+    static final int PLAYOUTS = 20000;
+
+    /** True iff AIs think on their opponents' time by default. */
+    static final boolean PONDER = false;
+
 }
@@ -0,0 +1,49 @@
+package ataxx;
+
+/** A Player that computes its own moves from a given position, so that
+ *  it can also be asked for moves outside of Game.play (as by Tournament
+ *  and Bench).  Subclasses differ in how they choose a move.
+ *  @author Jerome Rufin
+ */
+abstract class Engine extends Player {
+
+    /** An Engine for GAME that will play MYCOLOR. */
+    Engine(Game game, PieceColor myColor) {
+        super(game, myColor);
+    }
+
+    @Override
+    boolean isAuto() {
+        return true;
+    }
+
+    @Override
+    String getMove() {
+        if (!getBoard().canMove(myColor())) {
+            game().reportMove(Move.pass(), myColor());
+            return "-";
+        }
+        long start = Main.startTiming();
+        Move move = findMove(getBoard());
+        Main.endTiming(start);
+        if (Main.isTiming()) {
+            reportStatistics();
+        }
+        game().reportMove(move, myColor());
+        return move.toString();
+    }
+
+    /** Return a move for me from position BOARD0, assuming that it is my
+     *  move and there is a move.  BOARD0 is not changed. */
+    abstract Move findMove(Board board0);
+
+    /** Return the number of positions (or playouts) examined by my last
+     *  findMove. */
+    abstract long nodes();
+
+    /** Report statistics of my last findMove on the standard error, for
+     *  the --timing option.  By default, reports nothing. */
+    void reportStatistics() {
+    }
+
+}
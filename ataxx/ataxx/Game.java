@@ -4,6 +4,8 @@
 
 package ataxx;
 
+import java.util.ArrayList;
+
 import static ataxx.PieceColor.*;
 import static ataxx.GameException.error;
 import static ataxx.Utils.*;
@@ -32,6 +34,139 @@ class Game {
         _board.setNotifier((b) -> _view.update(b));
     }
 
+    /** Return the size in megabytes of the transposition table for AIs
+     *  created from now on. */
+    int hashSize() {
+        return _hashSize;
+    }
+
+    /** Set hashSize() to MEGABYTES, which must be positive and at most
+     *  Defaults.MAX_HASH_SIZE. */
+    void setHashSize(int megabytes) {
+        if (megabytes < 1 || megabytes > Defaults.MAX_HASH_SIZE) {
+            throw error("transposition tables are limited to 1-%d "
+                        + "megabytes", Defaults.MAX_HASH_SIZE);
+        }
+        _hashSize = megabytes;
+    }
+
+    /** Return the time in milliseconds that an AI may spend choosing a
+     *  move, or 0 if AIs search to a fixed depth. */
+    int timeLimit() {
+        return _timeLimit;
+    }
+
+    /** Set timeLimit() to MILLIS. */
+    void setTimeLimit(int millis) {
+        _timeLimit = millis;
+    }
+
+    /** Return the number of threads with which AIs search. */
+    int threads() {
+        return _threads;
+    }
+
+    /** Set threads() to THREADS, which must be positive. */
+    void setThreads(int threads) {
+        if (threads < 1) {
+            throw error("need at least one thread");
+        }
+        _threads = threads;
+    }
+
+    /** Return the reduction, in plies, of the depth to which AIs first
+     *  search late moves that capture nothing, or 0 if they do not
+     *  reduce them. */
+    int reduction() {
+        return _reduction;
+    }
+
+    /** Set reduction() to PLIES. */
+    void setReduction(int plies) {
+        _reduction = plies;
+    }
+
+    /** Return the number of levels above the horizon of their searches
+     *  at which AIs prune moves that cannot gain enough pieces to
+     *  matter, or 0 if they do not prune them. */
+    int futility() {
+        return _futility;
+    }
+
+    /** Set futility() to LEVELS, which must be between 0 and 2. */
+    void setFutility(int levels) {
+        if (levels > 2) {
+            throw error("futility pruning is limited to 2 levels");
+        }
+        _futility = levels;
+    }
+
+    /** Return the maximum number of levels of the quiescence searches at
+     *  the horizon of AIs' searches, or 0 if they do not do them. */
+    int quiescence() {
+        return _quiescence;
+    }
+
+    /** Set quiescence() to LEVELS, which must be at most
+     *  Searcher.MAX_QUIESCENCE_DEPTH. */
+    void setQuiescence(int levels) {
+        if (levels > Searcher.MAX_QUIESCENCE_DEPTH) {
+            throw error("quiescence search is limited to %d levels",
+                        Searcher.MAX_QUIESCENCE_DEPTH);
+        }
+        _quiescence = levels;
+    }
+
+    /** Return the number of empty squares at or below which AIs first
+     *  try to solve the game exactly, or 0 if they never do. */
+    int endgame() {
+        return _endgame;
+    }
+
+    /** Set endgame() to SQUARES. */
+    void setEndgame(int squares) {
+        _endgame = squares;
+    }
+
+    /** Return the number of positions AIs may visit trying to prove that
+     *  they can force a win, or 0 if they do not try. */
+    int proofNodes() {
+        return _proofNodes;
+    }
+
+    /** Set proofNodes() to NODES. */
+    void setProofNodes(int nodes) {
+        _proofNodes = nodes;
+    }
+
+    /** Return the number of playouts with which MCTS players choose a
+     *  move when timeLimit() is 0. */
+    int playouts() {
+        return _playouts;
+    }
+
+    /** Set playouts() to PLAYOUTS, which must be positive. */
+    void setPlayouts(int playouts) {
+        if (playouts < 1) {
+            throw error("need at least one playout");
+        }
+        _playouts = playouts;
+    }
+
+    /** Return true iff AIs keep searching on their opponents' time. */
+    boolean ponder() {
+        return _ponder;
+    }
+
+    /** Set ponder() to PONDER.  Stops any pondering in progress if
+     *  false. */
+    void setPonder(boolean ponder) {
+        _ponder = ponder;
+        if (!ponder) {
+            stopPondering();
+        }
+    }
+
     /** Returns the game board.  This board is not intended to be modified
      *  by the caller. */
     Board getBoard() {
@@ -52,7 +187,7 @@ class Game {
         System.out.println("Welcome to " + Defaults.VERSION);
         _board.clear();
         setManual(RED);
-        setAuto(BLUE);
+        setAuto(BLUE, null);
         _exit = -1;
         winnerAnnounced = false;
         while (_exit < 0) {
@@ -95,10 +230,14 @@ class Game {
         }
     }
 
-    /** Perform the move denoted by MOVESTR, which must be legal. */
+    /** Perform the move denoted by MOVESTR, which must be legal.  Any
+     *  pondering stops first, and the player who moved may then start
+     *  pondering. */
     void makeMove(String moveStr) {
         Move move = Move.move(moveStr);
+        PieceColor mover = _board.whoseMove();
         if (_board.legalMove(move)) {
+            stopPondering();
             _board.makeMove(move);
         } else {
             throw error("illegal move");
@@ -106,6 +245,19 @@ class Game {
         if (_verbose) {
             printBoard();
         }
+        Player player = getPlayer(mover);
+        if (player != null) {
+            player.startPondering();
+        }
+    }
+
+    /** Stop both players' pondering, if any. */
+    private void stopPondering() {
+        for (Player player : _players) {
+            if (player != null) {
+                player.stopPondering();
+            }
+        }
     }
 
     /** Place a block at the position PLACE (in crformat), and in its three
@@ -123,6 +275,7 @@ class Game {
     /** Undo the last move, and also the previous one, if that player is
      *  automatic. */
     void undo() {
+        stopPondering();
         if (_board.numMoves() > 0) {
             _board.undo();
             if (_board.numMoves() > 0
@@ -148,9 +301,14 @@ class Game {
         _reporter.msg("* %s wins.", _board.getWinner().toString());
     }
 
-    /** Make the player of COLOR an AI for subsequent moves. */
-    private void setAuto(PieceColor color) {
-        setPlayer(color, new AI(this, color, _seed));
+    /** Make the player of COLOR an AI for subsequent moves: an MCTS if
+     *  ENGINE is "mcts", and otherwise an AI. */
+    private void setAuto(PieceColor color, String engine) {
+        if ("mcts".equals(engine)) {
+            setPlayer(color, new MCTS(this, color, _seed));
+        } else {
+            setPlayer(color, new AI(this, color, _seed));
+        }
         _seed += 1;
     }
 
@@ -167,11 +325,21 @@ class Game {
 
     /** Set getPlayer(COLOR) to PLAYER. */
     private void setPlayer(PieceColor color, Player player) {
+        if (_players[color.ordinal()] != null) {
+            _players[color.ordinal()].stopPondering();
+        }
         _players[color.ordinal()] = player;
     }
 
-    /** Clear the board to its initial state. */
+    /** Clear the board to its initial state, and let the players know
+     *  that a new game is starting. */
     void clear() {
+        stopPondering();
+        for (Player player : _players) {
+            if (player != null) {
+                player.newGame();
+            }
+        }
         _board.clear();
     }
 
@@ -190,6 +358,72 @@ class Game {
         printHelpResource(HELP, System.out);
     }
 
+    /** Count the positions DEPTH moves below the current one (see
+     *  Perft), using threads() threads, and report the count and the
+     *  speed of counting.  If DIVIDE, first report the count below each
+     *  move.  If CHECK, also compare the counts with those of the
+     *  reference method, reporting an error if they differ.  Counts on a
+     *  copy of the board, so that the view is not updated for every
+     *  position. */
+    private void perft(int depth, boolean divide, boolean check) {
+        if (depth < 1) {
+            throw error("perft depth must be at least 1");
+        }
+        Board board = new Board(_board);
+        ArrayList<Move> moves = new ArrayList<>();
+        long start = System.nanoTime();
+        long[] counts = Perft.divide(board, depth, _threads, moves);
+        long time = (System.nanoTime() - start) / 1000000;
+        long nodes = Perft.sum(counts);
+        if (divide) {
+            for (int i = 0; i < counts.length; i += 1) {
+                _reporter.msg("%s: %d", moves.get(i), counts[i]);
+            }
+        }
+        _reporter.msg("Perft %d: %d nodes, %d msec, %d nodes/sec",
+                      depth, nodes, time, Bench.nps(nodes, time));
+        if (check) {
+            if (!Perft.referenceMovesAgree(board, moves)) {
+                throw error("perft moves differ from reference");
+            }
+            long[] expected = Perft.referenceDivide(board, depth, moves);
+            for (int i = 0; i < counts.length; i += 1) {
+                if (counts[i] != expected[i]) {
+                    throw error("perft after %s gives %d, but reference "
+                                + "gives %d", moves.get(i), counts[i],
+                                expected[i]);
+                }
+            }
+            _reporter.msg("Perft %d agrees with reference.", depth);
+        }
+    }
+
+    /** Report whether ATTACKER can force a win from the current
+     *  position, as found by a proof-number search (see ProofSearch) of
+     *  at most ProofSearch.ANALYSIS_NODE_LIMIT positions, and if so and
+     *  ATTACKER is to move, a winning move.  Searches a copy of the
+     *  board, so that the view is not updated for every position. */
+    private void prove(PieceColor attacker) {
+        ProofSearch search = new ProofSearch(_hashSize);
+        long start = System.nanoTime();
+        int result = search.prove(new Board(_board), attacker,
+                                  ProofSearch.ANALYSIS_NODE_LIMIT);
+        long time = (System.nanoTime() - start) / 1000000;
+        String outcome;
+        if (result == ProofSearch.UNKNOWN) {
+            outcome = String.format("No proof for %s", attacker);
+        } else if (result == ProofSearch.DISPROVEN) {
+            outcome = String.format("%s cannot force a win", attacker);
+        } else if (search.winningMove() == null) {
+            outcome = String.format("%s can force a win", attacker);
+        } else {
+            outcome = String.format("%s can force a win with %s", attacker,
+                                    search.winningMove());
+        }
+        _reporter.msg("%s (%d nodes, %d msec, %d nodes/sec)", outcome,
+                      search.nodes(), time, Bench.nps(search.nodes(), time));
+    }
+
     /** Seed the random-number generator with SEED. */
     private void setSeed(long seed) {
         _seed = seed;
@@ -205,7 +439,7 @@ class Game {
             case COMMENT:
                 break;
             case AUTO:
-                setAuto(parseColor(parts[0]));
+                setAuto(parseColor(parts[0]), parts[1]);
                 break;
             case BOARD:
                 printBoard();
@@ -226,11 +460,45 @@ class Game {
                 _verbose = false;
                 break;
             case QUIT:
+                stopPondering();
                 _exit = 0;
                 break;
             case SEED:
                 setSeed(toLong(parts[0]));
                 break;
+            case TIME:
+                setTimeLimit(toInt(parts[0]));
+                break;
+            case THREADS:
+                setThreads(toInt(parts[0]));
+                break;
+            case REDUCE:
+                setReduction(toInt(parts[0]));
+                break;
+            case FUTILITY:
+                setFutility(toInt(parts[0]));
+                break;
+            case QUIESCENCE:
+                setQuiescence(toInt(parts[0]));
+                break;
+            case ENDGAME:
+                setEndgame(toInt(parts[0]));
+                break;
+            case PROOF:
+                setProofNodes(toInt(parts[0]));
+                break;
+            case PONDER:
+                setPonder(parts[0].equals("on"));
+                break;
+            case PLAYOUTS:
+                setPlayouts(toInt(parts[0]));
+                break;
+            case PROVE:
+                prove(parseColor(parts[0]));
+                break;
+            case PERFT:
+                perft(toInt(parts[0]), parts[1] != null, parts[2] != null);
+                break;
             case VERBOSE:
                 _verbose = true;
                 break;
@@ -295,6 +563,36 @@ class Game {
      */
     private long _seed;
 
+    /** Size in megabytes of the transposition table of new AIs. */
+    private int _hashSize = Defaults.HASH_SIZE;
+
+    /** Milliseconds an AI may spend per move, or 0 for no limit. */
+    private int _timeLimit = Defaults.TIME_LIMIT;
+
+    /** Number of threads with which AIs search. */
+    private int _threads = Defaults.THREADS;
+
+    /** Reduction of late quiet moves in AIs' searches, in plies. */
+    private int _reduction = Defaults.REDUCTION;
+
+    /** Number of levels at which AIs' searches prune futile moves. */
+    private int _futility = Defaults.FUTILITY;
+
+    /** Maximum number of levels of AIs' quiescence searches. */
+    private int _quiescence = Defaults.QUIESCENCE;
+
+    /** Number of empty squares at or below which AIs try to solve. */
+    private int _endgame = Defaults.ENDGAME;
+
+    /** Number of positions AIs may visit trying to prove a win. */
+    private int _proofNodes = Defaults.PROOF_NODES;
+
+    /** Number of playouts with which MCTS players choose a move. */
+    private int _playouts = Defaults.PLAYOUTS;
+
+    /** True iff AIs search on their opponents' time. */
+    private boolean _ponder = Defaults.PONDER;
+
     /** When set to a non-negative value, indicates that play should terminate
      *  at the earliest possible point, returning _exit.  When negative,
      *  indicates that the session is not over. */
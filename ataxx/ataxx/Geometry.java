@@ -0,0 +1,142 @@
+package ataxx;
+
+import java.util.Arrays;
+
+/** The geometry of the Ataxx board: tables, computed once when the class
+ *  is loaded, that describe each square and its surroundings, shared by
+ *  Board, Move, and BoardWidget so that none of them has to compute or
+ *  look up square names, coordinates, or neighbors on the fly.
+ *
+ *  Squares are numbered in two ways.  The "linearized index" numbers the
+ *  squares of an 11x11 board in row-major order, starting at its lower
+ *  left corner; the outer two rows and columns are a border of squares
+ *  that are always blocked, so that index(c, r) is
+ *  (r - '1' + 2) * EXTENDED_SIDE + (c - 'a' + 2), and the squares within
+ *  two rows and columns of any real square all have indices.  The "bit
+ *  position" numbers only the 49 real squares, (r - '1') * SIDE
+ *  + (c - 'a'), and is the position of the square in the 49-bit masks
+ *  Board uses for sets of squares.  BIT and SQUARE convert between the
+ *  two.
+ *
+ *  The tables are arrays for speed, and must not be modified.
+ *  @author Jerome Rufin
+ */
+final class Geometry {
+
+    /** Number of squares on a side of the board. */
+    static final int SIDE = 7;
+
+    /** Length of a side + an artificial 2-deep border region. */
+    static final int EXTENDED_SIDE = SIDE + 4;
+
+    /** Number of squares on the board. */
+    static final int SQUARES = SIDE * SIDE;
+
+    /** Number of squares on the board with its border. */
+    static final int EXTENDED_SQUARES = EXTENDED_SIDE * EXTENDED_SIDE;
+
+    /** Mask of all squares on the real board. */
+    static final long ALL = (1L << SQUARES) - 1;
+
+    /** Column letters of the squares, indexed by linearized index.  The
+     *  border squares have letters outside 'a' to 'g'. */
+    static final char[] COL = new char[EXTENDED_SQUARES];
+
+    /** Row digits of the squares, indexed by linearized index.  The
+     *  border squares have digits outside '1' to '7'. */
+    static final char[] ROW = new char[EXTENDED_SQUARES];
+
+    /** Names ("a1" to "g7") of the squares, indexed by linearized index,
+     *  with null for the border squares. */
+    static final String[] NAME = new String[EXTENDED_SQUARES];
+
+    /** Bit positions of the squares, indexed by linearized index, with -1
+     *  for squares in the border region. */
+    static final int[] BIT = new int[EXTENDED_SQUARES];
+
+    /** Linearized indices of the squares, indexed by bit position. */
+    static final int[] SQUARE = new int[SQUARES];
+
+    /** The neighbors of each square, as masks: the squares adjacent to
+     *  it (those reachable by an extend), indexed by bit position. */
+    static final long[] ADJACENT = new long[SQUARES];
+
+    /** The squares exactly two rows or columns away from each square
+     *  (those reachable only by a jump), as masks indexed by bit
+     *  position. */
+    static final long[] JUMPS = new long[SQUARES];
+
+    /** Mask of all squares not in column a. */
+    static final long NOT_COL_A;
+
+    /** Mask of all squares not in column g. */
+    static final long NOT_COL_G;
+
+    /** Return the linearized index of square COL ROW. */
+    static int index(char col, char row) {
+        return (row - '1' + 2) * EXTENDED_SIDE + (col - 'a' + 2);
+    }
+
+    /** Return the linearized index of the square that is DC columns and DR
+     *  rows away from the square with index SQ. */
+    static int neighbor(int sq, int dc, int dr) {
+        return sq + dc + dr * EXTENDED_SIDE;
+    }
+
+    /** Return the mask of all squares adjacent to some square in MASK,
+     *  including the squares in MASK. */
+    static long grow(long mask) {
+        long h = mask | ((mask << 1) & NOT_COL_A) | ((mask >>> 1) & NOT_COL_G);
+        return (h | (h << SIDE) | (h >>> SIDE)) & ALL;
+    }
+
+    /** Return the mask of all squares within two rows and columns of
+     *  some square in MASK, including the squares in MASK. */
+    static long reach(long mask) {
+        return grow(grow(mask));
+    }
+
+    /** Not instantiable. */
+    private Geometry() {
+    }
+
+    static {
+        long colA, colG;
+        colA = colG = 0;
+        Arrays.fill(BIT, -1);
+        for (int sq = 0; sq < EXTENDED_SQUARES; sq += 1) {
+            COL[sq] = (char) ('a' - 2 + sq % EXTENDED_SIDE);
+            ROW[sq] = (char) ('1' - 2 + sq / EXTENDED_SIDE);
+        }
+        for (int r = 0; r < SIDE; r += 1) {
+            for (int c = 0; c < SIDE; c += 1) {
+                int b = r * SIDE + c;
+                SQUARE[b] = index((char) ('a' + c), (char) ('1' + r));
+                BIT[SQUARE[b]] = b;
+                NAME[SQUARE[b]] = "" + COL[SQUARE[b]] + ROW[SQUARE[b]];
+                if (c == 0) {
+                    colA |= 1L << b;
+                } else if (c == SIDE - 1) {
+                    colG |= 1L << b;
+                }
+            }
+        }
+        NOT_COL_A = ALL & ~colA;
+        NOT_COL_G = ALL & ~colG;
+        for (int b = 0; b < SQUARES; b += 1) {
+            for (int dc = -2; dc <= 2; dc += 1) {
+                for (int dr = -2; dr <= 2; dr += 1) {
+                    int b1 = BIT[neighbor(SQUARE[b], dc, dr)];
+                    if (b1 < 0 || b1 == b) {
+                        continue;
+                    }
+                    if (Math.abs(dc) <= 1 && Math.abs(dr) <= 1) {
+                        ADJACENT[b] |= 1L << b1;
+                    } else {
+                        JUMPS[b] |= 1L << b1;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static ataxx.Geometry.*;
+
+/** Tests of the Geometry tables.
+ *  @author Jerome Rufin
+ */
+public class GeometryTest {
+
+    @Test
+    public void testNumbering() {
+        for (int b = 0; b < SQUARES; b += 1) {
+            int sq = SQUARE[b];
+            assertEquals("BIT does not invert SQUARE", b, BIT[sq]);
+            assertEquals("wrong index", sq, index(COL[sq], ROW[sq]));
+            assertEquals("wrong name", "" + COL[sq] + ROW[sq], NAME[sq]);
+        }
+        assertEquals("wrong a1", 0, BIT[index('a', '1')]);
+        assertEquals("wrong g7", SQUARES - 1, BIT[index('g', '7')]);
+        assertEquals("border has a bit", -1, BIT[index('h', '1')]);
+        assertNull("border has a name", NAME[index('a', '0')]);
+    }
+
+    @Test
+    public void testNeighbors() {
+        int a1 = BIT[index('a', '1')], d4 = BIT[index('d', '4')],
+            b6 = BIT[index('b', '6')];
+        assertEquals("wrong a1 neighbors", 3, Long.bitCount(ADJACENT[a1]));
+        assertEquals("wrong a1 jumps", 5, Long.bitCount(JUMPS[a1]));
+        assertEquals("wrong d4 neighbors", 8, Long.bitCount(ADJACENT[d4]));
+        assertEquals("wrong d4 jumps", 16, Long.bitCount(JUMPS[d4]));
+        assertEquals("wrong b6 neighbors", 8, Long.bitCount(ADJACENT[b6]));
+        assertEquals("wrong b6 jumps", 7, Long.bitCount(JUMPS[b6]));
+        for (int b = 0; b < SQUARES; b += 1) {
+            long self = 1L << b;
+            assertEquals("ADJACENT disagrees with grow",
+                         grow(self) & ~self, ADJACENT[b]);
+            assertEquals("JUMPS disagrees with reach",
+                         reach(self) & ~grow(self), JUMPS[b]);
+        }
+    }
+
+}
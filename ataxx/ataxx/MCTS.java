@@ -0,0 +1,476 @@
+package ataxx;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ataxx.Geometry.*;
+
+/** A Player that chooses moves by Monte Carlo tree search (MCTS) with the
+ *  UCT rule, instead of by alpha-beta search as AI does.  Each playout
+ *  descends a tree of positions from the current one, at each node
+ *  choosing the move that maximizes its average result plus a bonus for
+ *  having been tried less often than its siblings, adds the moves from
+ *  the position it reaches to the tree, plays random moves from there to
+ *  the end of the game, and adds the result (1 for a win, 1/2 for a
+ *  draw, 0 for a loss) to every node on its way down.  The move played
+ *  is the one tried most often.
+ *
+ *  Playouts run on a compact copy of the position (three masks, the
+ *  player to move, and the number of consecutive jumps) and choose
+ *  uniformly among the same moves as Board.legalMoves, without
+ *  allocating.  The tree lives in a pool of nodes held in parallel
+ *  arrays, sized from the game's hash size and reused from one move to
+ *  the next; once the pool is full, the tree stops growing, and playouts
+ *  start from its leaves.
+ *
+ *  With more than one thread, the threads share the tree, taking a lock
+ *  to descend and to record results, but not during the random part of
+ *  a playout, which is most of its work.  Each node on the way down
+ *  gets a "virtual loss" until the playout's result is recorded, so
+ *  that other threads prefer other paths meanwhile.
+ *
+ *  A search stops after game().playouts() playouts, or, if the game has
+ *  a time limit, when time runs out.
+ *  @author Jerome Rufin
+ */
+class MCTS extends Engine {
+
+    /** Size in bytes of one node of the tree. */
+    static final int NODE_SIZE = 23;
+
+    /** Weight of the exploration bonus in the UCT rule. */
+    private static final double EXPLORATION = 0.7;
+
+    /** Least and greatest number of nodes in the pool. */
+    private static final int MIN_NODES = 1 << 10, MAX_NODES = 1 << 26;
+
+    /** Bit position in a move code standing for an extend's origin (see
+     *  code). */
+    private static final int EXTEND = 63;
+
+    /** The move code of a pass. */
+    private static final int PASS = (EXTEND << 6) | EXTEND;
+
+    /** A new MCTS player for GAME that will play MYCOLOR.  SEED is used
+     *  to initialize the random-number generators of its playouts, so
+     *  that with one thread, identical seeds produce identical
+     *  behaviour. */
+    MCTS(Game game, PieceColor myColor, long seed) {
+        this(game, myColor, seed, (int) Math.max(MIN_NODES, Math.min(
+            MAX_NODES, (long) game.hashSize() * (1 << 20) / NODE_SIZE)));
+    }
+
+    /** A new MCTS player for GAME that will play MYCOLOR, as for
+     *  MCTS(GAME, MYCOLOR, SEED), but whose pool holds NODES nodes
+     *  rather than as many as fit in GAME's hashSize(). */
+    MCTS(Game game, PieceColor myColor, long seed, int nodes) {
+        super(game, myColor);
+        _seed = seed;
+        _firstChild = new int[nodes];
+        _numChildren = new int[nodes];
+        _move = new short[nodes];
+        _mover = new byte[nodes];
+        _visits = new int[nodes];
+        _wins = new float[nodes];
+        _virtual = new int[nodes];
+        _workers = new Worker[0];
+    }
+
+    @Override
+    void reportStatistics() {
+        System.err.printf("[MCTS: %d playouts, %d playouts/sec, %d of %d "
+                          + "nodes, %d threads]%n", _playouts,
+                          playoutsPerSecond(), _size, _visits.length,
+                          _workers.length);
+    }
+
+    /** Return a move for me from position BOARD0, assuming that it is my
+     *  move and there is a move: the one tried most often by playouts
+     *  from BOARD0, which run in game().threads() threads. */
+    @Override
+    Move findMove(Board board0) {
+        long start = System.nanoTime();
+        int limit = game().timeLimit();
+        _deadline = limit > 0
+            ? System.currentTimeMillis() + limit : Long.MAX_VALUE;
+        _playoutLimit = limit > 0 ? Long.MAX_VALUE : game().playouts();
+        _started.set(0);
+        _size = 1;
+        _firstChild[0] = -1;
+        _numChildren[0] = _visits[0] = _virtual[0] = 0;
+        _wins[0] = 0;
+        setThreads(game().threads());
+        for (Worker worker : _workers) {
+            worker.setUp(board0);
+        }
+
+        Thread[] helpers = new Thread[_workers.length - 1];
+        for (int k = 0; k < helpers.length; k += 1) {
+            helpers[k] = new Thread(_workers[k + 1]);
+            helpers[k].setDaemon(true);
+            helpers[k].start();
+        }
+        _workers[0].run();
+        try {
+            for (Thread helper : helpers) {
+                helper.join();
+            }
+        } catch (InterruptedException excp) {
+            throw new Error("unexpected interrupt");
+        }
+        _playouts = 0;
+        for (Worker worker : _workers) {
+            _playouts += worker.playouts();
+        }
+        _time = System.nanoTime() - start;
+
+        int best = -1;
+        for (int c = _firstChild[0];
+             c >= 0 && c < _firstChild[0] + _numChildren[0]; c += 1) {
+            if (best < 0 || _visits[c] > _visits[best]) {
+                best = c;
+            }
+        }
+        if (best < 0) {
+            Move[] moves = new Move[Board.MAX_MOVES];
+            board0.legalMoves(myColor(), moves);
+            return moves[0];
+        }
+        return toMove(board0, _move[best]);
+    }
+
+    /** Return the number of playouts in my last search. */
+    @Override
+    long nodes() {
+        return _playouts;
+    }
+
+    /** Return the number of playouts per second in my last search. */
+    long playoutsPerSecond() {
+        return (long) (_playouts * 1e9 / Math.max(1, _time));
+    }
+
+    /** Return the Move from BOARD denoted by move code CODE. */
+    private static Move toMove(Board board, int code) {
+        if (code == PASS) {
+            return Move.pass();
+        }
+        int to = code & EXTEND, from = code >>> 6;
+        if (from == EXTEND) {
+            long origins = ADJACENT[to] & board.pieces(board.whoseMove());
+            from = Long.numberOfTrailingZeros(origins);
+        }
+        return Move.move(SQUARE[from], SQUARE[to]);
+    }
+
+    /** Make sure I have exactly THREADS Workers. */
+    private void setThreads(int threads) {
+        if (_workers.length != threads) {
+            _workers = new Worker[threads];
+            for (int k = 0; k < threads; k += 1) {
+                _workers[k] = new Worker(_seed + k);
+            }
+        }
+    }
+
+    /** The playouts carried out by one thread, with the compact position
+     *  on which they are played.  A move is represented by a code (see
+     *  code), and a player by 0 (red) or 1 (blue). */
+    private class Worker implements Runnable {
+
+        /** A Worker whose random moves are seeded with SEED. */
+        Worker(long seed) {
+            _random = seed * 0x9e3779b97f4a7c15L + 1;
+            _path = new int[64];
+        }
+
+        /** Prepare to search from position BOARD. */
+        void setUp(Board board) {
+            _rootRed = board.pieces(PieceColor.RED);
+            _rootBlue = board.pieces(PieceColor.BLUE);
+            _blocked = ALL & ~(_rootRed | _rootBlue | board.empties());
+            _rootSide = board.whoseMove() == PieceColor.RED ? 0 : 1;
+            _rootJumps = board.numJumps();
+            _mover[0] = (byte) (1 - _rootSide);
+            _done = 0;
+        }
+
+        @Override
+        public void run() {
+            while (_started.getAndIncrement() < _playoutLimit
+                   && System.currentTimeMillis() < _deadline) {
+                playout();
+                _done += 1;
+            }
+        }
+
+        /** Return the number of playouts I completed in the last
+         *  search. */
+        long playouts() {
+            return _done;
+        }
+
+        /** Carry out one playout from the root of the tree. */
+        private void playout() {
+            _red = _rootRed;
+            _blue = _rootBlue;
+            _side = _rootSide;
+            _jumps = _rootJumps;
+            _over = false;
+            int node = 0, length = 0;
+            synchronized (MCTS.this) {
+                while (true) {
+                    _path = length < _path.length
+                        ? _path : Arrays.copyOf(_path, 2 * length);
+                    _path[length] = node;
+                    length += 1;
+                    _virtual[node] += 1;
+                    if (_over) {
+                        break;
+                    }
+                    if (_firstChild[node] < 0
+                        && (_visits[node] == 0 && node != 0
+                            || !expand(node))) {
+                        break;
+                    }
+                    node = select(node);
+                    makeMove(_move[node]);
+                }
+            }
+            while (!_over) {
+                makeMove(randomMove());
+            }
+            float result = result();
+            synchronized (MCTS.this) {
+                for (int i = 0; i < length; i += 1) {
+                    int n = _path[i];
+                    _virtual[n] -= 1;
+                    _visits[n] += 1;
+                    _wins[n] += _mover[n] == 0 ? result : 1 - result;
+                }
+            }
+        }
+
+        /** Return the child of NODE with the greatest UCT value, counting
+         *  virtual losses as visits, or an untried child if there is
+         *  one. */
+        private int select(int node) {
+            double logVisits = Math.log(_visits[node] + _virtual[node]);
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            int end = _firstChild[node] + _numChildren[node];
+            for (int c = _firstChild[node]; c < end; c += 1) {
+                int visits = _visits[c] + _virtual[c];
+                if (visits == 0) {
+                    return c;
+                }
+                double value = _wins[c] / visits
+                    + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        /** Add the moves from my current position, which is that of
+         *  NODE, to the tree as children of NODE, returning true, or
+         *  return false if the pool has no room for them. */
+        private boolean expand(int node) {
+            long mine = _side == 0 ? _red : _blue, empty = empties();
+            long extendTo = grow(mine) & empty;
+            int n = Long.bitCount(extendTo);
+            for (long p = mine; p != 0; p &= p - 1) {
+                n += Long.bitCount(JUMPS[Long.numberOfTrailingZeros(p)]
+                                   & empty);
+            }
+            if (_size + Math.max(1, n) > _visits.length) {
+                return false;
+            }
+            int first = _size;
+            if (n == 0) {
+                addChild(PASS);
+            }
+            for (; extendTo != 0; extendTo &= extendTo - 1) {
+                addChild(code(EXTEND, Long.numberOfTrailingZeros(extendTo)));
+            }
+            for (long p = mine; p != 0; p &= p - 1) {
+                int from = Long.numberOfTrailingZeros(p);
+                for (long to = JUMPS[from] & empty; to != 0; to &= to - 1) {
+                    addChild(code(from, Long.numberOfTrailingZeros(to)));
+                }
+            }
+            _firstChild[node] = first;
+            _numChildren[node] = _size - first;
+            return true;
+        }
+
+        /** Add a node for the move with code CODE by the player to move
+         *  to the pool. */
+        private void addChild(int code) {
+            int c = _size;
+            _size += 1;
+            _firstChild[c] = -1;
+            _numChildren[c] = _visits[c] = _virtual[c] = 0;
+            _wins[c] = 0;
+            _move[c] = (short) code;
+            _mover[c] = (byte) _side;
+        }
+
+        /** Return the code of a move chosen at random, with equal
+         *  probabilities, among those of the player to move (a pass if
+         *  there are none). */
+        private int randomMove() {
+            long mine = _side == 0 ? _red : _blue, empty = empties();
+            long extendTo = grow(mine) & empty;
+            int extendCount = Long.bitCount(extendTo), n = extendCount;
+            for (long p = mine; p != 0; p &= p - 1) {
+                n += Long.bitCount(JUMPS[Long.numberOfTrailingZeros(p)]
+                                   & empty);
+            }
+            if (n == 0) {
+                return PASS;
+            }
+            int k = nextInt(n);
+            if (k < extendCount) {
+                return code(EXTEND, nthBit(extendTo, k));
+            }
+            k -= extendCount;
+            for (long p = mine;; p &= p - 1) {
+                int from = Long.numberOfTrailingZeros(p);
+                long to = JUMPS[from] & empty;
+                int count = Long.bitCount(to);
+                if (k < count) {
+                    return code(from, nthBit(to, k));
+                }
+                k -= count;
+            }
+        }
+
+        /** Make the move with code CODE for the player to move, as
+         *  Board.makeMove would, setting _over if it ends the game.  As
+         *  in Board.addMove, a pass leaves _jumps alone, so that a game
+         *  in which one side can only pass still ends at the jump
+         *  limit, and no playout can go on forever. */
+        private void makeMove(int code) {
+            if (code != PASS) {
+                int from = code >>> 6, to = code & EXTEND;
+                long mine = _side == 0 ? _red : _blue;
+                long theirs = _side == 0 ? _blue : _red;
+                if (from == EXTEND) {
+                    _jumps = 0;
+                } else {
+                    mine &= ~(1L << from);
+                    _jumps += 1;
+                }
+                long captured = ADJACENT[to] & theirs;
+                mine |= (1L << to) | captured;
+                theirs &= ~captured;
+                _red = _side == 0 ? mine : theirs;
+                _blue = _side == 0 ? theirs : mine;
+                _over = _red == 0 || _blue == 0
+                    || (reach(_red | _blue) & empties()) == 0
+                    || _jumps == Board.JUMP_LIMIT;
+            }
+            _side = 1 - _side;
+        }
+
+        /** Return the mask of empty squares. */
+        private long empties() {
+            return ALL & ~(_red | _blue | _blocked);
+        }
+
+        /** Return the result for red of the game, which is over: 1 for a
+         *  win, 0 for a loss, and 1/2 for a draw. */
+        private float result() {
+            int margin = Long.bitCount(_red) - Long.bitCount(_blue);
+            return margin > 0 ? 1 : margin < 0 ? 0 : 0.5f;
+        }
+
+        /** Return a pseudo-random integer in [0, N). */
+        private int nextInt(int n) {
+            _random ^= _random << 13;
+            _random ^= _random >>> 7;
+            _random ^= _random << 17;
+            return (int) (((_random >>> 32) * n) >>> 32);
+        }
+
+        /** State of a xorshift pseudo-random number generator. */
+        private long _random;
+        /** The nodes on the way down in the current playout. */
+        private int[] _path;
+        /** The position being searched: red's and blue's pieces, the
+         *  player to move, and the number of consecutive jumps. */
+        private long _rootRed, _rootBlue;
+        /** The player to move in the position being searched. */
+        private int _rootSide;
+        /** numJumps() in the position being searched. */
+        private int _rootJumps;
+        /** Blocked squares. */
+        private long _blocked;
+        /** The current position: red's and blue's pieces. */
+        private long _red, _blue;
+        /** The player to move in the current position. */
+        private int _side;
+        /** Number of consecutive jumps in the current position. */
+        private int _jumps;
+        /** True iff the game is over in the current position. */
+        private boolean _over;
+        /** Number of playouts completed in the current search. */
+        private long _done;
+    }
+
+    /** Return the code of the move from bit position FROM (EXTEND for an
+     *  extend) to bit position TO: FROM in bits 6-11, and TO in bits
+     *  0-5. */
+    private static int code(int from, int to) {
+        return (from << 6) | to;
+    }
+
+    /** Return the bit position of the Kth (from 0) set bit of MASK. */
+    private static int nthBit(long mask, int k) {
+        for (; k > 0; k -= 1) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    /** Seed from which my Workers' random-number generators are
+     *  derived. */
+    private final long _seed;
+
+    /* The tree is a pool of nodes in parallel arrays, indexed by node
+     * number.  Node 0 is the root, and the children of a node are
+     * consecutive.  These are guarded by the lock on this MCTS. */
+
+    /** Index of each node's first child, or -1 if it has none yet. */
+    private final int[] _firstChild;
+    /** Number of children of each node. */
+    private final int[] _numChildren;
+    /** Code of the move that leads to each node. */
+    private final short[] _move;
+    /** Player (0 or 1) who made the move that leads to each node. */
+    private final byte[] _mover;
+    /** Number of playouts through each node. */
+    private final int[] _visits;
+    /** Total result of those playouts for _mover. */
+    private final float[] _wins;
+    /** Number of unfinished playouts through each node. */
+    private final int[] _virtual;
+    /** Number of nodes in use. */
+    private int _size;
+
+    /** Number of playouts started in the current search. */
+    private final AtomicLong _started = new AtomicLong();
+    /** Number of playouts after which the current search stops. */
+    private volatile long _playoutLimit;
+    /** Time (in milliseconds) at which the current search stops. */
+    private volatile long _deadline;
+    /** The playouts carried out for me, one Worker per thread. */
+    private Worker[] _workers;
+    /** Number of playouts in my last search. */
+    private long _playouts;
+    /** Nanoseconds taken by my last search. */
+    private long _time;
+}
@@ -0,0 +1,70 @@
+package ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static ataxx.PieceColor.*;
+
+/** Tests of the MCTS class.
+ *  @author Jerome Rufin
+ */
+public class MCTSTest {
+
+    /** Return a game, never played, whose MCTS players use THREADS
+     *  threads and PLAYOUTS playouts per move. */
+    private static Game game(int threads, int playouts) {
+        Game game = new Game(null, (b) -> { }, new TextReporter(), false);
+        game.setHashSize(1);
+        game.setThreads(threads);
+        game.setPlayouts(playouts);
+        return game;
+    }
+
+    @Test
+    public void testLegalMoves() {
+        for (int threads = 1; threads <= 3; threads += 2) {
+            Game game = game(threads, 500);
+            for (String desc : Bench.POSITIONS) {
+                Board b = Bench.position(desc);
+                String position = b.toPosition();
+                MCTS player = new MCTS(game, b.whoseMove(), 1);
+                Move move = player.findMove(b);
+                assertEquals("board changed", position, b.toPosition());
+                assertTrue("illegal move " + move + " in " + position,
+                           b.legalMove(move));
+                assertEquals("wrong number of playouts", 500,
+                             player.nodes());
+            }
+        }
+    }
+
+    @Test
+    public void testFindsWin() {
+        Board b = new Board("7/7/7/7/7/7/r1b4 r 0");
+        MCTS player = new MCTS(game(1, 2000), RED, 1);
+        b.makeMove(player.findMove(b));
+        assertEquals("missed a capture that wins", RED, b.getWinner());
+    }
+
+    @Test
+    public void testReproducible() {
+        Game game = game(1, 1000);
+        for (String desc : Bench.POSITIONS) {
+            Board b = Bench.position(desc);
+            Move move1 = new MCTS(game, b.whoseMove(), 5).findMove(b);
+            Move move2 = new MCTS(game, b.whoseMove(), 5).findMove(b);
+            assertEquals("results not reproducible in " + b.toPosition(),
+                         move1, move2);
+        }
+    }
+
+    @Test
+    public void testTinyPool() {
+        Game game = game(2, 3000);
+        Board b = Bench.position(Bench.POSITIONS[0]);
+        MCTS player = new MCTS(game, RED, 1, 1000);
+        assertTrue("illegal move", b.legalMove(player.findMove(b)));
+        assertEquals("wrong number of playouts", 3000, player.nodes());
+    }
+
+}
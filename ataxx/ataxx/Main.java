@@ -28,13 +28,18 @@ public class Main {
      *       --log: Print commands.
      *       --strict: Strict mode---players errors cause error exit.
      *       --debug: Set level of debugging information.
+     *       --hash: Set size of AI transposition tables in megabytes.
+     *       --time: Set milliseconds an AI may spend per move.
+     *       --threads: Set number of threads with which an AI searches.
      *  Trailing arguments are input files; the standard input is the
      *  default.
      */
     public static void main(String[] args0) {
         CommandArgs args =
             new CommandArgs("--display{0,1} --strict --version --timing --log"
-                            + " --debug=(\\d+){0,1} --=(.*){0,}", args0);
+                            + " --debug=(\\d+){0,1} --hash=(\\d+){0,1}"
+                            + " --time=(\\d+){0,1} --threads=(\\d+){0,1}"
+                            + " --=(.*){0,}", args0);
 
 
         System.out.println("CS61B Ataxx! Version 3.0");
@@ -50,6 +55,7 @@ public class Main {
         }
 
         _strict = args.contains("--strict");
+        _timing = args.contains("--timing");
         boolean log = args.contains("--log");
         if (args.contains("--debug")) {
             Utils.setMessageLevel(args.getInt("--debug"));
@@ -83,6 +89,25 @@ public class Main {
             game = new Game(new TextSource(inReaders),
                             (b) -> { }, new TextReporter(), log);
         }
+        try {
+            if (args.contains("--hash")) {
+                game.setHashSize(args.getInt("--hash"));
+            }
+            if (args.contains("--time")) {
+                game.setTimeLimit(args.getInt("--time"));
+            }
+            if (args.contains("--threads")) {
+                game.setThreads(args.getInt("--threads"));
+            }
+        } catch (GameException excp) {
+            System.err.println(excp.getMessage());
+            usage();
+            System.exit(1);
+        } catch (NumberFormatException excp) {
+            System.err.println("option value out of range");
+            usage();
+            System.exit(1);
+        }
         System.exit(game.play());
     }
 
@@ -100,18 +125,23 @@ public class Main {
 
     /* TIMING */
 
-    /** Start timing an operation. */
-    static void startTiming() {
-        if (_timing) {
-            _startTime = System.currentTimeMillis();
-        }
+    /** Return true iff --timing flag supplied. */
+    static boolean isTiming() {
+        return _timing;
+    }
+
+    /** Start timing an operation, returning the value to pass to
+     *  endTiming when it ends.  Operations may be timed in several
+     *  threads at once. */
+    static long startTiming() {
+        return System.currentTimeMillis();
     }
 
-    /** End the timing started with the last call to startTiming().
-     *  Report result if we are timing. */
-    static void endTiming() {
+    /** End the timing of an operation for which startTiming() returned
+     *  START.  Report result if we are timing. */
+    static synchronized void endTiming(long start) {
         if (_timing) {
-            long time = System.currentTimeMillis() - _startTime;
+            long time = System.currentTimeMillis() - start;
             System.err.printf("[%d msec]%n", time);
             _maxTime = Math.max(_maxTime, time);
             _totalTime += time;
@@ -120,7 +150,7 @@ public class Main {
     }
 
     /** Report total time statistics, if timing. */
-    static void reportTotalTimes() {
+    static synchronized void reportTotalTimes() {
         if (_timing && _numTimedOps > 0) {
             System.err.printf("[Total time: %d msec for %d operations. "
                               + "Avg: %d msec/operation. "
@@ -130,6 +160,11 @@ public class Main {
         }
     }
 
+    /* _timing and _strict are set by main before any game starts, and
+     * only read afterwards.  The timing totals are updated only under the
+     * lock on Main.class, since AIs in several threads may be timed at
+     * once. */
+
     /** True iff AIs should time. */
     private static boolean _timing;
 
@@ -140,9 +175,6 @@ public class Main {
     /** Accumulated time. */
     private static long _totalTime;
 
-    /** Last start time. */
-    private static long _startTime;
-
     /** Number of operations timed. */
     private static int _numTimedOps;
 
@@ -7,6 +7,7 @@ package ataxx;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
+import static ataxx.Geometry.*;
 import static java.lang.Math.abs;
 
 /** Represents an Ataxx move. There is one Move object created for
@@ -23,17 +24,18 @@ class Move {
      * are immutable, and for any possible move, there is exactly one
      * object of type Move. */
 
-    /** The move COL0 ROW0 - COL1 ROW1.  This must be a legal move. */
-    private Move(int col0, int row0, int col1, int row1) {
-        _col0 = (char) (col0 + 'a' - 2);
-        _row0 = (char) (row0 + '1' - 2);
-        _col1 = (char) (col1 + 'a' - 2);
-        _row1 = (char) (row1 + '1' - 2);
-        _fromIndex = row0 * EXTENDED_SIDE + col0;
-        _toIndex = row1 * EXTENDED_SIDE + col1;
-        _isExtend = (abs(row1 - row0) == 1 && abs(col1 - col0) <= 1)
-                || (abs(row1 - row0) <= 1 && abs(col1 - col0) == 1);
-        _isJump = abs(row1 - row0) == 2 || abs(col1 - col0) == 2;
+    /** The move from the square with linearized index FROM to the one
+     *  with linearized index TO.  This must be a legal move. */
+    private Move(int from, int to) {
+        _col0 = COL[from];
+        _row0 = ROW[from];
+        _col1 = COL[to];
+        _row1 = ROW[to];
+        _fromIndex = from;
+        _toIndex = to;
+        int dc = abs(_col1 - _col0), dr = abs(_row1 - _row0);
+        _isExtend = Math.max(dc, dr) == 1;
+        _isJump = Math.max(dc, dr) == 2;
     }
 
     /** A pass. */
@@ -43,16 +45,24 @@ class Move {
         _isJump = _isExtend = false;
     }
 
-    /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
-     *  assuming the column and row designations are valid. Returns null
-     *  if no such move is ever possible because it is more than 2 squares
-     *  in some direction.  The moves are on the extended board (i.e., they
-     *  may go into the border layers). */
+    /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1.
+     *  Returns null if no such move is ever possible because COL0 ROW0 is
+     *  not on the board, or COL1 ROW1 is the same square or more than 2
+     *  squares from it in some direction.  The moves are on the extended
+     *  board (i.e., they may go into the border layers). */
     static Move move(char col0, char row0, char col1, char row1) {
-        assert col0 >= 'a' && row0 >= '1' && col1 >= 'a' - 2 && row1 >= '1' - 2;
-        return
-            ALL_MOVES[col0 - 'a' + 2][row0 - '1' + 2]
-            [col1 - 'a' + 2][row1 - '1' + 2];
+        if (col0 < 'a' || col0 > 'g' || row0 < '1' || row0 > '7'
+            || abs(col1 - col0) > 2 || abs(row1 - row0) > 2) {
+            return null;
+        }
+        return MOVES[index(col0, row0)][index(col1, row1)];
+    }
+
+    /** Return the Move from the square with linearized index FROM to
+     *  the one with linearized index TO, or null if there is no such
+     *  move.  FROM must be on the real board. */
+    static Move move(int from, int to) {
+        return MOVES[from][to];
     }
 
     /** Return the Move denoted by STR, or null if STR is not a syntactically
@@ -137,12 +147,6 @@ class Move {
     private static final Pattern MOVE_PATN =
         Pattern.compile("([a-z][1-9a-f]-[a-z][1-9a-f])|(-)");
 
-    /** Size of a side of the board. */
-    static final int SIDE = 7;
-
-    /** Size of side of a board plus 2-deep boundary. */
-    static final int EXTENDED_SIDE = SIDE + 4;
-
     /** The pass. */
     static final Move PASS = new Move();
 
@@ -155,20 +159,18 @@ class Move {
     /** From and two squares, or 0s if a pass. */
     private char _col0, _row0, _col1, _row1;
 
-    /** The set of all Moves other than pass, indexed by from and to column and
-     *  row positions. */
-    private static final Move[][][][] ALL_MOVES =
-        new Move[EXTENDED_SIDE][EXTENDED_SIDE][EXTENDED_SIDE][EXTENDED_SIDE];
+    /** The set of all Moves other than pass, indexed by the linearized
+     *  indices of their from and to squares. */
+    private static final Move[][] MOVES =
+        new Move[EXTENDED_SQUARES][EXTENDED_SQUARES];
 
     static {
-        for (int c = 2; c < SIDE + 2; c += 1) {
-            for (int r = 2; r < SIDE + 2; r += 1) {
-                for (int dc = -2; dc <= 2; dc += 1) {
-                    for (int dr = -2; dr <= 2; dr += 1) {
-                        if (dc != 0 || dr != 0) {
-                            ALL_MOVES[c][r][c + dc][r + dr] =
-                                new Move(c, r, c + dc, r + dr);
-                        }
+        for (int from : SQUARE) {
+            for (int dc = -2; dc <= 2; dc += 1) {
+                for (int dr = -2; dr <= 2; dr += 1) {
+                    if (dc != 0 || dr != 0) {
+                        int to = neighbor(from, dc, dr);
+                        MOVES[from][to] = new Move(from, to);
                     }
                 }
             }
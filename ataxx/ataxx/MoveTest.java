@@ -50,6 +50,14 @@ public class MoveTest {
         assertTrue("move not jump", m1.isJump());
     }
 
+    @Test
+    public void testImpossible() {
+        assertNull("move to same square", move('c', '3', 'c', '3'));
+        assertNull("move too far", move('a', '1', 'd', '1'));
+        assertNull("move from off board", move('h', '1', 'g', '1'));
+        assertNull("move string off board", move("z9-a1"));
+    }
+
     @Test
     public void testToString() {
         Move m = move('a', '3', 'a', '5');
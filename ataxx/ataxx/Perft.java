@@ -0,0 +1,283 @@
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Perft ("performance test"): counting the positions at a given depth
+ *  of the game tree below a position.  The counts check legalMoves,
+ *  makeMove, and undo against a brute-force reference that does not use
+ *  legalMoves: it tries every pair of squares with legalMove, on copies
+ *  of the board, and counts each resulting position once.  The speed of
+ *  counting measures them.  Moves are as in legalMoves: one extend per
+ *  destination (all extends to a square lead to the same position),
+ *  every jump, and a pass when there is nothing else.  A position in
+ *  which the game is over has no moves.  Usage:
+ *      java ataxx.Perft [ --divide ] [ --check ] [ DEPTH [ THREADS ] ]
+ *  counts to DEPTH (default 4) from each of the positions in
+ *  Bench.POSITIONS, using THREADS threads (default 1).  --divide also
+ *  prints the count below each move from each position, and --check
+ *  compares the counts with the reference, exiting with status 1 if
+ *  any differ.
+ *  @author Jerome Rufin
+ */
+class Perft {
+
+    /** Run perft with arguments ARGS, as described above. */
+    public static void main(String[] args) {
+        boolean divide, check;
+        divide = check = false;
+        ArrayList<Integer> numbers = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--divide")) {
+                divide = true;
+            } else if (arg.equals("--check")) {
+                check = true;
+            } else {
+                numbers.add(Integer.parseInt(arg));
+            }
+        }
+        int depth = numbers.size() > 0 ? numbers.get(0) : 4;
+        int threads = numbers.size() > 1 ? numbers.get(1) : 1;
+        if (depth < 1 || threads < 1) {
+            System.err.println("Usage: java ataxx.Perft [ --divide ] "
+                               + "[ --check ] [ DEPTH [ THREADS ] ]");
+            System.exit(1);
+        }
+
+        long totalNodes, totalTime;
+        totalNodes = totalTime = 0;
+        boolean agrees = true;
+        System.out.printf("Threads: %d%n", threads);
+        System.out.printf("Position  Depth         Nodes     Msec"
+                          + "         NPS%s%n", check ? "  Reference" : "");
+        for (int i = 0; i < Bench.POSITIONS.length; i += 1) {
+            Board board = Bench.position(Bench.POSITIONS[i]);
+            ArrayList<Move> moves = new ArrayList<>();
+            long start = System.nanoTime();
+            long[] counts = divide(board, depth, threads, moves);
+            long time = (System.nanoTime() - start) / 1000000;
+            long nodes = sum(counts);
+            String result = "";
+            if (check) {
+                long[] expected = referenceDivide(board, depth, moves);
+                if (sum(expected) == nodes
+                    && referenceMovesAgree(board, moves)) {
+                    result = "  agrees";
+                } else {
+                    result = String.format("  %d", sum(expected));
+                    agrees = false;
+                }
+            }
+            System.out.printf("%8d  %5d  %12d  %7d  %10d%s%n",
+                              i + 1, depth, nodes, time,
+                              Bench.nps(nodes, time), result);
+            if (divide) {
+                for (int k = 0; k < moves.size(); k += 1) {
+                    System.out.printf("          %-5s  %12d%n",
+                                      moves.get(k), counts[k]);
+                }
+            }
+            totalNodes += nodes;
+            totalTime += time;
+        }
+        System.out.printf("   Total         %12d  %7d  %10d%n",
+                          totalNodes, totalTime,
+                          Bench.nps(totalNodes, totalTime));
+        System.exit(agrees ? 0 : 1);
+    }
+
+    /** Return the number of positions DEPTH moves below BOARD, which is
+     *  unchanged afterwards. */
+    static long count(Board board, int depth) {
+        return count(board, depth, new Move[depth][Board.MAX_MOVES]);
+    }
+
+    /** Store the moves from BOARD in MOVES (which is cleared first), and
+     *  return the number of positions DEPTH moves below BOARD that follow
+     *  each of them, in the same order, DEPTH > 0.  The subtrees below
+     *  the moves are counted in parallel by THREADS threads.  BOARD is
+     *  unchanged afterwards. */
+    static long[] divide(Board board, int depth, int threads,
+                         List<Move> moves) {
+        assert depth > 0;
+        moves.clear();
+        if (board.getWinner() == null) {
+            Move[] buffer = new Move[Board.MAX_MOVES];
+            int n = board.legalMoves(board.whoseMove(), buffer);
+            for (int i = 0; i < n; i += 1) {
+                moves.add(buffer[i]);
+            }
+            if (n == 0) {
+                moves.add(Move.pass());
+            }
+        }
+        long[] counts = new long[moves.size()];
+        if (threads == 1) {
+            Move[][] buffers = new Move[depth - 1][Board.MAX_MOVES];
+            for (int i = 0; i < counts.length; i += 1) {
+                board.makeMove(moves.get(i));
+                counts[i] = count(board, depth - 1, buffers);
+                board.undo();
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ArrayList<Subtree> tasks = new ArrayList<>();
+                for (Move move : moves) {
+                    tasks.add(new Subtree(board, move, depth - 1));
+                    pool.execute(tasks.get(tasks.size() - 1));
+                }
+                for (int i = 0; i < counts.length; i += 1) {
+                    counts[i] = tasks.get(i).join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return counts;
+    }
+
+    /** Return the number of positions DEPTH moves below BOARD, counted
+     *  by the reference method (see referenceChildren), with no
+     *  shortcuts. */
+    static long reference(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        } else if (board.getWinner() != null) {
+            return 0;
+        }
+        long nodes = 0;
+        for (Board child : referenceChildren(board)) {
+            nodes += reference(child, depth - 1);
+        }
+        return nodes;
+    }
+
+    /** Return the distinct positions that follow BOARD, where the game is
+     *  not over, found without legalMoves: by trying a move
+     *  between every pair of squares with legalMove and making each
+     *  legal one on a new copy of BOARD, keeping one board per resulting
+     *  position, or by passing if none is legal. */
+    static Collection<Board> referenceChildren(Board board) {
+        HashMap<Board, Board> children = new HashMap<>();
+        for (char c0 = 'a'; c0 <= 'g'; c0 += 1) {
+            for (char r0 = '1'; r0 <= '7'; r0 += 1) {
+                for (char c1 = 'a'; c1 <= 'g'; c1 += 1) {
+                    for (char r1 = '1'; r1 <= '7'; r1 += 1) {
+                        Move move = Move.move(c0, r0, c1, r1);
+                        if (move != null && !move.isPass()
+                            && board.legalMove(move)) {
+                            Board child = new Board(board);
+                            child.makeMove(move);
+                            children.put(child, child);
+                        }
+                    }
+                }
+            }
+        }
+        if (children.isEmpty()) {
+            Board child = new Board(board);
+            child.pass();
+            children.put(child, child);
+        }
+        return children.values();
+    }
+
+    /** Return the number of positions DEPTH moves below BOARD that follow
+     *  each of MOVES, in order, as counted by reference. */
+    static long[] referenceDivide(Board board, int depth, List<Move> moves) {
+        long[] counts = new long[moves.size()];
+        for (int i = 0; i < counts.length; i += 1) {
+            Board child = new Board(board);
+            child.makeMove(moves.get(i));
+            counts[i] = reference(child, depth - 1);
+        }
+        return counts;
+    }
+
+    /** Return true iff MOVES lead from BOARD to exactly the positions
+     *  that referenceChildren finds, each reached by one move. */
+    static boolean referenceMovesAgree(Board board, List<Move> moves) {
+        HashSet<Board> positions = new HashSet<>();
+        for (Move move : moves) {
+            Board child = new Board(board);
+            child.makeMove(move);
+            if (!positions.add(child)) {
+                return false;
+            }
+        }
+        if (board.getWinner() != null) {
+            return positions.isEmpty();
+        }
+        return positions.equals(new HashSet<>(referenceChildren(board)));
+    }
+
+    /** Return the sum of COUNTS. */
+    static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /** Return the number of positions DEPTH moves below BOARD, using
+     *  MOVES[d] to hold the moves d moves from the bottom.  Positions one
+     *  move from the bottom are counted without making their moves. */
+    private static long count(Board board, int depth, Move[][] moves) {
+        if (depth == 0) {
+            return 1;
+        } else if (board.getWinner() != null) {
+            return 0;
+        }
+        Move[] next = moves[depth - 1];
+        int n = board.legalMoves(board.whoseMove(), next);
+        if (depth == 1) {
+            return Math.max(n, 1);
+        } else if (n == 0) {
+            board.pass();
+            long nodes = count(board, depth - 1, moves);
+            board.undo();
+            return nodes;
+        }
+        long nodes = 0;
+        for (int i = 0; i < n; i += 1) {
+            board.makeMove(next[i]);
+            nodes += count(board, depth - 1, moves);
+            board.undo();
+        }
+        return nodes;
+    }
+
+    /** A task that counts the positions below one move from a position,
+     *  on a copy of that position of its own. */
+    private static class Subtree extends RecursiveTask<Long> {
+
+        /** A task that counts the positions DEPTH moves below the one that
+         *  MOVE reaches from BOARD. */
+        Subtree(Board board, Move move, int depth) {
+            _board = new Board(board);
+            _move = move;
+            _depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            _board.makeMove(_move);
+            return count(_board, _depth);
+        }
+
+        /** The position before _move. */
+        private final Board _board;
+        /** The move at the root of my subtree. */
+        private final Move _move;
+        /** Depth of the subtree. */
+        private final int _depth;
+    }
+
+}
@@ -0,0 +1,61 @@
+package ataxx;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the Perft class.
+ *  @author Jerome Rufin
+ */
+public class PerftTest {
+
+    @Test
+    public void testInitialCounts() {
+        Board b = new Board();
+        assertEquals("wrong count at depth 0", 1, Perft.count(b, 0));
+        assertEquals("wrong count at depth 1", 16, Perft.count(b, 1));
+        assertEquals("wrong count at depth 2", 256, Perft.count(b, 2));
+        assertEquals("wrong count at depth 3", 6460, Perft.count(b, 3));
+        assertEquals("board changed", new Board(), b);
+    }
+
+    @Test
+    public void testAgreesWithReference() {
+        for (String desc : Bench.POSITIONS) {
+            Board b = Bench.position(desc);
+            ArrayList<Move> moves = new ArrayList<>();
+            long[] counts = Perft.divide(b, 3, 1, moves);
+            assertTrue("moves differ from reference in " + desc,
+                       Perft.referenceMovesAgree(b, moves));
+            assertArrayEquals("perft differs from reference in " + desc,
+                              Perft.referenceDivide(b, 3, moves), counts);
+            assertEquals("count differs from divide in " + desc,
+                         Perft.sum(counts), Perft.count(b, 3));
+            assertEquals("board changed in " + desc,
+                         Bench.position(desc), b);
+        }
+    }
+
+    @Test
+    public void testReferenceDetectsMissingMove() {
+        Board b = Bench.position(Bench.POSITIONS[1]);
+        ArrayList<Move> moves = new ArrayList<>();
+        Perft.divide(b, 1, 1, moves);
+        moves.remove(moves.size() - 1);
+        assertFalse("missing move not detected",
+                    Perft.referenceMovesAgree(b, moves));
+    }
+
+    @Test
+    public void testParallel() {
+        Board b = Bench.position(Bench.POSITIONS[2]);
+        ArrayList<Move> moves = new ArrayList<>(), moves2 = new ArrayList<>();
+        long[] counts = Perft.divide(b, 3, 1, moves);
+        assertArrayEquals("parallel counts differ", counts,
+                          Perft.divide(b, 3, 3, moves2));
+        assertEquals("parallel moves differ", moves, moves2);
+    }
+
+}
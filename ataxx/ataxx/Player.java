@@ -40,6 +40,21 @@ abstract class Player {
      *  board.whoseMove() == myColor() and that the game is not over. */
     abstract String getMove();
 
+    /** Forget anything I have learned from the game so far, which is
+     *  starting over.  By default, does nothing. */
+    void newGame() {
+    }
+
+    /** Start thinking on my opponent's time, if I do that.  Called after
+     *  each of my moves is made.  By default, does nothing. */
+    void startPondering() {
+    }
+
+    /** Stop any thinking begun by startPondering, returning only once it
+     *  has stopped.  By default, does nothing. */
+    void stopPondering() {
+    }
+
     /** The game I am playing in. */
     private final Game _game;
     /** The color of my pieces. */
@@ -0,0 +1,299 @@
+package ataxx;
+
+import java.util.Arrays;
+
+/** A depth-first proof-number search (df-pn) that answers whether one
+ *  player, the attacker, can force a win from a position.  Unlike an
+ *  alpha-beta search, it never asks by how much a position is won, and
+ *  it looks first where a proof (or a disproof) needs the fewest more
+ *  positions to be settled, so it can prove wins that lie far deeper
+ *  than any fixed-depth search reaches.  A draw counts as a failure for
+ *  the attacker.
+ *
+ *  Every position has a proof number, the least number of unsettled
+ *  positions that must turn out well for the player to move to show
+ *  that that player succeeds (wins, for the attacker; avoids losing,
+ *  for the other player), and a disproof number, the least number that
+ *  must turn out badly to show that the player fails.  The proof number
+ *  of a position is the least disproof number of the positions after its
+ *  moves, and its disproof number is the sum of their proof numbers.
+ *  The search goes down the move with the least disproof number, until
+ *  the numbers of its position pass thresholds derived from its
+ *  parent's, and stores the numbers it finds in a hash table.
+ *
+ *  The table has a fixed size.  Each position has two possible entries,
+ *  and a new result replaces the one of the two that took fewer
+ *  positions to find, so that the table keeps its most expensive
+ *  results when it is full.  The Zobrist key of a position includes
+ *  numJumps(), and the game ends after JUMP_LIMIT jumps in a row, so no
+ *  position can recur below itself, and the graph searched has no
+ *  cycles.  This relies on passes leaving numJumps() alone (see
+ *  Board.addMove): if a pass reset it, two jumps back and forth between
+ *  passes would bring back the same position.
+ *  @author Jerome Rufin
+ */
+class ProofSearch {
+
+    /** Value of prove when the attacker can force a win. */
+    static final int PROVEN = 1;
+    /** Value of prove when the attacker cannot force a win. */
+    static final int DISPROVEN = 0;
+    /** Value of prove when the search was abandoned. */
+    static final int UNKNOWN = -1;
+
+    /** Number of positions after which a search for the prove command
+     *  is abandoned. */
+    static final long ANALYSIS_NODE_LIMIT = 2_000_000;
+
+    /** Size in bytes of one entry (its key and its data). */
+    static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+    /** A new search whose table uses at most MEGABYTES megabytes (and at
+     *  least two entries). */
+    ProofSearch(int megabytes) {
+        long entries = Long.highestOneBit(
+            Math.max(2, (long) megabytes * (1 << 20) / ENTRY_SIZE));
+        entries = Math.min(entries, 1 << 30);
+        _keys = new long[(int) entries];
+        _data = new long[(int) entries];
+        _mask = (int) entries - 2;
+        _moves = new Move[INITIAL_PLIES][];
+    }
+
+    /** Remove the results of all earlier searches. */
+    void clear() {
+        Arrays.fill(_keys, 0);
+        Arrays.fill(_data, 0);
+    }
+
+    /** Return PROVEN if ATTACKER can force a win from BOARD, DISPROVEN if
+     *  not, and UNKNOWN if finding out takes more than NODELIMIT
+     *  positions.  BOARD is searched by making and undoing moves on it,
+     *  and is unchanged on return. */
+    int prove(Board board, PieceColor attacker, long nodeLimit) {
+        _attacker = attacker;
+        _attackerKey = attacker == PieceColor.RED ? 0 : BLUE_ATTACKER_KEY;
+        _nodes = 0;
+        _nodeLimit = nodeLimit;
+        _aborted = false;
+        _winningMove = null;
+        long numbers;
+        if (board.getWinner() != null) {
+            numbers = terminal(board);
+        } else {
+            numbers = search(board, 0, INFINITY, INFINITY);
+        }
+        if (_aborted) {
+            return UNKNOWN;
+        } else if (board.whoseMove() != attacker) {
+            _winningMove = null;
+        }
+        int settled = board.whoseMove() == attacker
+            ? proof(numbers) : disproof(numbers);
+        return settled == 0 ? PROVEN : DISPROVEN;
+    }
+
+    /** Return a winning move for the attacker found by the last search,
+     *  if it proved a win with the attacker to move, and otherwise
+     *  null. */
+    Move winningMove() {
+        return _aborted ? null : _winningMove;
+    }
+
+    /** Return the number of positions visited by the last search. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Search BOARD, PLY moves below the position being proved, until
+     *  its proof number reaches THPROOF or its disproof number reaches
+     *  THDISPROOF, and return its numbers, packed as by numbers.  At
+     *  ply 0, sets _winningMove to a move that succeeds for the player
+     *  to move, if the search shows there is one.  If the search is
+     *  abandoned, returns a meaningless value. */
+    private long search(Board board, int ply, int thProof, int thDisproof) {
+        _nodes += 1;
+        if (_nodes > _nodeLimit) {
+            _aborted = true;
+        }
+        if (_aborted) {
+            return 0;
+        }
+        long start = _nodes;
+        ensurePlies(ply);
+        Move[] moves = _moves[ply];
+        int n = board.legalMoves(board.whoseMove(), moves);
+        if (n == 0) {
+            moves[0] = Move.pass();
+            n = 1;
+        }
+
+        while (true) {
+            int disproof = 0, best = 0, bestProof = 0;
+            int delta1 = INFINITY, delta2 = INFINITY;
+            for (int i = 0; i < n; i += 1) {
+                board.makeMove(moves[i]);
+                long child = lookUp(board);
+                board.undo();
+                disproof = Math.min(INFINITY, disproof + proof(child));
+                int childDisproof = disproof(child);
+                if (childDisproof < delta1) {
+                    delta2 = delta1;
+                    delta1 = childDisproof;
+                    best = i;
+                    bestProof = proof(child);
+                } else if (childDisproof < delta2) {
+                    delta2 = childDisproof;
+                }
+            }
+            int proof = delta1;
+            if (proof >= thProof || disproof >= thDisproof) {
+                if (ply == 0 && proof == 0) {
+                    _winningMove = moves[best];
+                }
+                store(board.zobristKey() ^ _attackerKey, proof, disproof,
+                      _nodes - start + 1);
+                return numbers(proof, disproof);
+            }
+            int childThProof =
+                Math.min(INFINITY, thDisproof - disproof + bestProof);
+            int childThDisproof = Math.min(thProof, delta2 + 1);
+            board.makeMove(moves[best]);
+            search(board, ply + 1, childThProof, childThDisproof);
+            board.undo();
+            if (_aborted) {
+                return 0;
+            }
+        }
+    }
+
+    /** Return the numbers of BOARD as far as they are known: exact if
+     *  the game is over, as stored if BOARD is in my table, and 1 and 1
+     *  otherwise. */
+    private long lookUp(Board board) {
+        if (board.getWinner() != null) {
+            return terminal(board);
+        }
+        long key = board.zobristKey() ^ _attackerKey;
+        int i = (int) key & _mask;
+        for (int k = i; k <= i + 1; k += 1) {
+            long data = _data[k];
+            if (data != 0 && (_keys[k] ^ data) == key) {
+                return data & NUMBERS_MASK;
+            }
+        }
+        return numbers(1, 1);
+    }
+
+    /** Return the numbers of BOARD, in which the game is over. */
+    private long terminal(Board board) {
+        boolean attackerWon = board.getWinner() == _attacker;
+        boolean attackerToMove = board.whoseMove() == _attacker;
+        if (attackerWon == attackerToMove) {
+            return numbers(0, INFINITY);
+        } else {
+            return numbers(INFINITY, 0);
+        }
+    }
+
+    /** Record that the position with key KEY (including _attackerKey)
+     *  has proof number PROOF and disproof number DISPROOF, found after
+     *  visiting WORK positions.  Replaces an earlier entry for the same
+     *  position if there is one, and otherwise whichever of the two
+     *  possible entries took less work. */
+    private void store(long key, int proof, int disproof, long work) {
+        int i = (int) key & _mask;
+        int k;
+        if (_data[i] != 0 && (_keys[i] ^ _data[i]) == key) {
+            k = i;
+        } else if (_data[i + 1] != 0
+                   && (_keys[i + 1] ^ _data[i + 1]) == key) {
+            k = i + 1;
+        } else {
+            k = work(_data[i]) <= work(_data[i + 1]) ? i : i + 1;
+        }
+        long workBits = Math.min(WORK_MASK, Long.SIZE
+                                 - Long.numberOfLeadingZeros(work));
+        long data = numbers(proof, disproof) | (workBits << WORK_SHIFT);
+        _data[k] = data;
+        _keys[k] = key ^ data;
+    }
+
+    /** Return PROOF and DISPROOF, both at most INFINITY, packed into a
+     *  long. */
+    private static long numbers(int proof, int disproof) {
+        return ((long) disproof << NUMBER_BITS) | proof;
+    }
+
+    /** Return the proof number in NUMBERS. */
+    private static int proof(long numbers) {
+        return (int) numbers & INFINITY;
+    }
+
+    /** Return the disproof number in NUMBERS. */
+    private static int disproof(long numbers) {
+        return (int) (numbers >>> NUMBER_BITS) & INFINITY;
+    }
+
+    /** Return the work recorded in entry data DATA (0 for none). */
+    private static int work(long data) {
+        return (int) (data >>> WORK_SHIFT);
+    }
+
+    /** Make sure that _moves has a buffer for PLY. */
+    private void ensurePlies(int ply) {
+        if (ply >= _moves.length) {
+            _moves = Arrays.copyOf(_moves, 2 * _moves.length);
+        }
+        if (_moves[ply] == null) {
+            _moves[ply] = new Move[Board.MAX_MOVES];
+        }
+    }
+
+    /* Layout of an entry's data: bits 0-27 hold the proof number, bits
+     * 28-55 the disproof number, and bits 56-61 the base-2 logarithm of
+     * the number of positions its search visited.  A proof and a
+     * disproof number are never both 0, so no valid entry is 0. */
+
+    /** Number of bits in a proof or disproof number. */
+    private static final int NUMBER_BITS = 28;
+    /** A proof or disproof number standing for infinity: the number of a
+     *  position that has been settled the other way.  It is also the
+     *  mask for a number. */
+    private static final int INFINITY = (1 << NUMBER_BITS) - 1;
+    /** Mask for the proof and disproof numbers of an entry. */
+    private static final long NUMBERS_MASK = (1L << (2 * NUMBER_BITS)) - 1;
+    /** Position of the work. */
+    private static final int WORK_SHIFT = 2 * NUMBER_BITS;
+    /** Largest work. */
+    private static final long WORK_MASK = 0x3f;
+    /** Value XORed into the keys of positions when blue is the attacker,
+     *  so that results for the two attackers do not mix. */
+    private static final long BLUE_ATTACKER_KEY = 0x9e3779b97f4a7c15L;
+    /** Number of plies for which buffers are first allocated. */
+    private static final int INITIAL_PLIES = 64;
+
+    /** Keys of the positions in the entries, each XORed with the entry's
+     *  data. */
+    private final long[] _keys;
+    /** Packed data for the entries, 0 for an empty entry.  A position's
+     *  two possible entries are at an even index and the one after. */
+    private final long[] _data;
+    /** Mask giving the index of the first entry for a key. */
+    private final int _mask;
+    /** Move buffers, indexed by ply. */
+    private Move[][] _moves;
+    /** The player trying to force a win in the current search. */
+    private PieceColor _attacker;
+    /** BLUE_ATTACKER_KEY if blue is _attacker, and otherwise 0. */
+    private long _attackerKey;
+    /** Number of positions visited by the current search. */
+    private long _nodes;
+    /** Number of positions after which the current search is
+     *  abandoned. */
+    private long _nodeLimit;
+    /** True iff the current search has been abandoned. */
+    private boolean _aborted;
+    /** Winning move found at the root of the current search. */
+    private Move _winningMove;
+}
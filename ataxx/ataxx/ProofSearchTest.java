@@ -0,0 +1,90 @@
+package ataxx;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static ataxx.PieceColor.*;
+
+/** Tests of the ProofSearch class.
+ *  @author Jerome Rufin
+ */
+public class ProofSearchTest {
+
+    /** Number of positions visited before a search in these tests is
+     *  abandoned. */
+    private static final long NODE_LIMIT = 100_000;
+
+    @Test
+    public void testAgreesWithSolver() {
+        Random random = new Random(22);
+        Solver solver = new Solver(1);
+        ProofSearch search = new ProofSearch(1);
+        int checked = 0;
+        for (int empties = 1; empties <= 3; empties += 1) {
+            for (int k = 0; k < 10; k += 1) {
+                Board b = Solver.randomPosition(random, empties);
+                String position = b.toPosition();
+                int outcome = solver.solveOutcome(b, NODE_LIMIT);
+                for (PieceColor attacker : new PieceColor[] { RED, BLUE }) {
+                    int result = search.prove(b, attacker, NODE_LIMIT);
+                    assertEquals("board changed", position, b.toPosition());
+                    if (outcome != Solver.UNKNOWN
+                        && result != ProofSearch.UNKNOWN) {
+                        int sense = attacker == RED ? 1 : -1;
+                        assertEquals("wrong result for " + attacker
+                                     + " in " + position,
+                                     sense * outcome == 1,
+                                     result == ProofSearch.PROVEN);
+                        checked += 1;
+                    }
+                }
+            }
+        }
+        assertTrue("too few positions checked", checked > 0);
+    }
+
+    @Test
+    public void testWinningMove() {
+        Random random = new Random(23);
+        ProofSearch search = new ProofSearch(1);
+        int checked = 0;
+        for (int k = 0; k < 20; k += 1) {
+            Board b = Solver.randomPosition(random, 2);
+            PieceColor attacker = b.whoseMove();
+            if (search.prove(b, attacker, NODE_LIMIT) == ProofSearch.PROVEN) {
+                Move move = search.winningMove();
+                assertTrue("illegal winning move", b.legalMove(move));
+                b.makeMove(move);
+                assertEquals("winning move does not win", ProofSearch.PROVEN,
+                             search.prove(b, attacker, NODE_LIMIT));
+                assertNull("winning move for the defender",
+                           search.winningMove());
+                checked += 1;
+            } else {
+                assertNull("winning move without a proof",
+                           search.winningMove());
+            }
+        }
+        assertTrue("too few positions checked", checked > 0);
+    }
+
+    @Test
+    public void testSmallTable() {
+        Random random = new Random(24);
+        ProofSearch large = new ProofSearch(4), small = new ProofSearch(0);
+        for (int k = 0; k < 10; k += 1) {
+            Board b = Solver.randomPosition(random, 2);
+            int result = large.prove(b, RED, NODE_LIMIT);
+            if (result != ProofSearch.UNKNOWN) {
+                int smallResult = small.prove(b, RED, 2 * NODE_LIMIT);
+                if (smallResult != ProofSearch.UNKNOWN) {
+                    assertEquals("results differ with a small table in "
+                                 + b.toPosition(), result, smallResult);
+                }
+            }
+        }
+    }
+
+}
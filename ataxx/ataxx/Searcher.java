@@ -0,0 +1,736 @@
+package ataxx;
+
+import java.util.Arrays;
+
+import static java.lang.Math.min;
+import static java.lang.Math.max;
+
+/** An alpha-beta game-tree search of one position, deepened iteratively,
+ *  that records its results in a transposition table.  An AI uses one
+ *  Searcher per thread: all of them search the same position and share
+ *  one table, each thread benefiting from what the others store there.
+ *  Everything else (the board searched, move buffers, killer moves, and
+ *  history counts) belongs to a single Searcher.  The table and the
+ *  history counts are kept from one search to the next until cleared.
+ *
+ *  A search is started with setUp and carried out by run, possibly in
+ *  another thread.  It may be ended early with stop.
+ *  @author Jerome Rufin
+ */
+class Searcher implements Runnable {
+
+    /** Maximum depth of a search.  WINNING_VALUE + depth must not
+     *  overflow. */
+    static final int MAX_SEARCH_DEPTH = 16;
+    /** Maximum number of levels of a quiescence search. */
+    static final int MAX_QUIESCENCE_DEPTH = 8;
+    /** Number of killer moves kept for each ply. */
+    private static final int KILLERS = 2;
+    /** Number of distinct move codes (see moveCode). */
+    private static final int MOVE_CODES =
+        Geometry.EXTENDED_SQUARES * Geometry.EXTENDED_SQUARES;
+    /* Move ordering keys: captures are the most significant, then
+     * extends before jumps, then killers, then history counts. */
+    /** Ordering key of the hash move. */
+    private static final int HASH_MOVE_KEY = Integer.MAX_VALUE;
+    /** Position of the capture count in an ordering key. */
+    private static final int CAPTURE_SHIFT = 27;
+    /** Ordering key bonus for an extend. */
+    private static final int EXTEND_KEY = 1 << 26;
+    /** Ordering key bonus for a killer move. */
+    private static final int KILLER_KEY = 1 << 25;
+    /** Base-2 logarithm of the factor by which history counts are scaled
+     *  down at the start of each search. */
+    private static final int HISTORY_DECAY = 3;
+    /** Largest history count, which must stay below KILLER_KEY.  When a
+     *  count passes it, all the counts are halved. */
+    private static final int HISTORY_LIMIT = KILLER_KEY - 1;
+    /** Number of moves at each node selected in order before sorting the
+     *  rest. */
+    private static final int SELECTED = 3;
+    /** Half-width of the initial aspiration window (see
+     *  aspirationSearch), in pieces. */
+    private static final int ASPIRATION = 4;
+    /** Number of moves at each node, counting from the first in order,
+     *  that are never reduced. */
+    private static final int LATE_MOVES = 3;
+    /** Least remaining depth at which moves are reduced. */
+    private static final int REDUCTION_DEPTH = 3;
+    /** Least number of reachable empty squares at which moves are pruned
+     *  or reduced (see farFromEnd). */
+    private static final int PRUNE_EMPTIES = 8;
+    /** Least number of pieces a move must capture to be searched by
+     *  quiesce. */
+    private static final int QUIESCENCE_CAPTURES = 4;
+    /** Number of nodes searched between checks of the clock. */
+    private static final int CLOCK_INTERVAL = 1024;
+    /** A position magnitude indicating a win (for red if positive, blue
+     *  if negative). */
+    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
+    /** A magnitude greater than a normal value. */
+    private static final int INFTY = Integer.MAX_VALUE;
+    /** Scores of at least this magnitude indicate a forced win or loss.
+     *  Piece counts never come close. */
+    private static final int WIN_THRESHOLD = WINNING_VALUE - 1000;
+
+    /** A new Searcher that records its results in TABLE. */
+    Searcher(TranspositionTable table) {
+        _table = table;
+        _moves = new Move[MAX_SEARCH_DEPTH + 1][Board.MAX_MOVES];
+        _order = new long[MAX_SEARCH_DEPTH + 1][Board.MAX_MOVES];
+        _killers = new Move[MAX_SEARCH_DEPTH + 1][KILLERS];
+        _history = new int[MOVE_CODES];
+        _quiescenceMoves = new Move[MAX_QUIESCENCE_DEPTH][Board.MAX_MOVES];
+        _quiescenceOrder = new long[MAX_QUIESCENCE_DEPTH][Board.MAX_MOVES];
+    }
+
+    /** Prepare to search BOARD, which must not be used by anyone else
+     *  until the search is over, to depths FIRSTDEPTH, FIRSTDEPTH+1, ...,
+     *  MAXDEPTH in turn, stopping at time DEADLINE (as from
+     *  System.currentTimeMillis) if not before.  The position must have a
+     *  move other than a pass. */
+    void setUp(Board board, int firstDepth, int maxDepth, long deadline) {
+        assert 1 <= firstDepth && maxDepth <= MAX_SEARCH_DEPTH;
+        _board = board;
+        _firstDepth = firstDepth;
+        _maxDepth = maxDepth;
+        _deadline = deadline;
+        _stopped = false;
+        _expectedMove = null;
+    }
+
+    /** In the search last set up, try MOVE (which may be null) first at
+     *  the root, until an iteration finds a best move, unless the table
+     *  has a best move for the root position.  MOVE is typically the
+     *  move for this position in the principal variation of an earlier
+     *  search. */
+    void setExpectedMove(Move move) {
+        _expectedMove = move;
+    }
+
+    /** Forget the history counts of earlier searches. */
+    void clearHistory() {
+        Arrays.fill(_history, 0);
+    }
+
+    /** Search from now on with late move reductions of REDUCTION plies
+     *  (0 for none), and with futility pruning at nodes up to FUTILITY
+     *  levels from the horizon (0 for none, and at most 2).  The search
+     *  reduces quiet moves (those that capture nothing, other than
+     *  killers) that come late in the order at nodes at least
+     *  REDUCTION_DEPTH from the horizon, searching them again to the full
+     *  depth if the reduced search suggests they are better than the best
+     *  so far.  It prunes the moves that cannot gain enough pieces to
+     *  beat the best so far: one level from the horizon, a move's value
+     *  is at most its gain in pieces, since the opponent may stand pat
+     *  in the quiescence search that follows.  At two levels, the
+     *  opponent's reply can only take pieces back, but a quiescence
+     *  search after it can capture more, so the search prunes at two
+     *  levels only when it does no quiescence search.  Neither applies
+     *  at the root or near the end of the game (see farFromEnd). */
+    void setPruning(int reduction, int futility) {
+        assert reduction >= 0 && 0 <= futility && futility <= 2;
+        _reduction = reduction;
+        _futility = futility;
+    }
+
+    /** Search from now on with quiescence searches (see quiesce) of at
+     *  most LEVELS levels at the horizon, 0 <= LEVELS <=
+     *  MAX_QUIESCENCE_DEPTH.  With 0, the value of a position at the
+     *  horizon is its static value. */
+    void setQuiescence(int levels) {
+        assert 0 <= levels && levels <= MAX_QUIESCENCE_DEPTH;
+        _quiescence = levels;
+    }
+
+    /** Perform the search last set up, trying at each depth the best move
+     *  of the previous iteration first.  Each iteration after the first
+     *  expects a value near that of the last iteration to the same
+     *  parity of depth (see aspirationSearch), since the value tends to
+     *  swing according to which side moves last.  If time runs out or I
+     *  am stopped, the unfinished iteration is abandoned.  The first
+     *  iteration is not abandoned for lack of time, so that bestMove()
+     *  is a move on return unless I was stopped first. */
+    @Override
+    public void run() {
+        int sense = _board.whoseMove() == PieceColor.RED ? 1 : -1;
+        _aborted = false;
+        _nodes = _quiescenceNodes = _nextCheck = 0;
+        _depthReached = _score = 0;
+        _lastFoundMove = null;
+        for (Move[] killers : _killers) {
+            Arrays.fill(killers, null);
+        }
+        for (int i = 0; i < _history.length; i += 1) {
+            _history[i] >>= HISTORY_DECAY;
+        }
+
+        int score, previous;
+        score = previous = 0;
+        for (int depth = _firstDepth; depth <= _maxDepth; depth += 1) {
+            int guess = depth - _firstDepth >= 2 ? previous : score;
+            int next = aspirationSearch(depth, sense, guess);
+            if (_aborted) {
+                break;
+            }
+            previous = score;
+            score = next;
+            _depthReached = depth;
+            _score = score;
+            if (Math.abs(score) >= WIN_THRESHOLD) {
+                break;
+            }
+        }
+    }
+
+    /** Search _board to DEPTH, where SENSE is as for minMax, and return
+     *  its value, given that GUESS is an estimate of that value from an
+     *  earlier iteration.  Unless this is the first iteration, the search
+     *  starts with a window of ASPIRATION on either side of GUESS,
+     *  widening it on the side where the value falls outside and searching
+     *  again
+     *  until the value falls within it.  A value outside the window says
+     *  little about the best move when the side to move did worse than
+     *  expected, so in that case the move found before the search is
+     *  kept. */
+    private int aspirationSearch(int depth, int sense, int guess) {
+        if (_depthReached == 0 || Math.abs(guess) >= WIN_THRESHOLD) {
+            return minMax(_board, depth, 0, true, sense, -INFTY, INFTY);
+        }
+        int below, above;
+        below = above = ASPIRATION;
+        while (true) {
+            int alpha = below == INFTY ? -INFTY : guess - below;
+            int beta = above == INFTY ? INFTY : guess + above;
+            Move prior = _lastFoundMove;
+            int score = minMax(_board, depth, 0, true, sense, alpha, beta);
+            if (_aborted) {
+                return score;
+            } else if (score <= alpha) {
+                below = widen(below, score);
+                if (sense == 1) {
+                    _lastFoundMove = prior;
+                }
+            } else if (score >= beta) {
+                above = widen(above, score);
+                if (sense == -1) {
+                    _lastFoundMove = prior;
+                }
+            } else {
+                return score;
+            }
+        }
+    }
+
+    /** Return the width to use for one side of an aspiration window of
+     *  width WIDTH after a search returned SCORE outside it: twice the
+     *  width, or INFTY (no limit) if SCORE is a win or loss. */
+    private static int widen(int width, int score) {
+        return Math.abs(score) >= WIN_THRESHOLD ? INFTY : 2 * width;
+    }
+
+    /** Cause the search in progress, if any, to end soon.  May be called
+     *  from any thread. */
+    void stop() {
+        _stopped = true;
+    }
+
+    /** Return the move found by the last iteration of my last search that
+     *  was completed, or null if none was. */
+    Move bestMove() {
+        return _lastFoundMove;
+    }
+
+    /** Return the value found by the last iteration of my last search
+     *  that was completed (positive favoring red), or 0 if none was. */
+    int score() {
+        return _score;
+    }
+
+    /** Return the depth of the last iteration of my last search that was
+     *  completed, or 0 if none was. */
+    int depthReached() {
+        return _depthReached;
+    }
+
+    /** Return the number of positions visited by my last search. */
+    long nodes() {
+        return _nodes + _quiescenceNodes;
+    }
+
+    /** Return the number of positions visited by the quiescence searches
+     *  (see quiesce) of my last search below the horizon, which are
+     *  included in nodes(). */
+    long quiescenceNodes() {
+        return _quiescenceNodes;
+    }
+
+    /** Return true iff the search in progress should be abandoned because
+     *  I have been stopped or its time is up.  Only checks every
+     *  CLOCK_INTERVAL nodes, and never abandons the first iteration for
+     *  lack of time. */
+    private boolean outOfTime() {
+        if (!_aborted && nodes() >= _nextCheck) {
+            _nextCheck = nodes() + CLOCK_INTERVAL;
+            _aborted = _stopped
+                || (_lastFoundMove != null
+                    && System.currentTimeMillis() >= _deadline);
+        }
+        return _aborted;
+    }
+
+    /** Find a move from position BOARD and return its value, recording
+     *  the move found in _foundMove iff SAVEMOVE. The move
+     *  should have maximal value or have value > BETA if SENSE==1,
+     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
+     *  DEPTH levels, PLY moves below the root (since late moves may be
+     *  reduced, PLY does not follow from DEPTH).  Searching at level 0
+     *  returns the value of a quiescence search (see quiesce) and does
+     *  not set _foundMove.  If the game is over
+     *  on BOARD, does not set _foundMove.  BOARD is searched by making
+     *  and undoing moves on it, and is unchanged on return.  Results are
+     *  recorded in and reused from _table.  If SAVEMOVE, the move last
+     *  saved (or, if none, the one in _table, or failing that,
+     *  _expectedMove) is searched first.  If
+     *  time runs out, returns at once with a meaningless value, leaving
+     *  _table and _foundMove unchanged.
+     *
+     *  This is a principal variation search: only the first move is
+     *  searched with the full window.  Each later move is first searched
+     *  with a null window, just enough to show that it is no better than
+     *  the best so far, and is searched again with the full window only
+     *  if it turns out to be better.  Late moves may also be reduced, and
+     *  futile ones pruned, as described at setPruning. */
+    private int minMax(Board board, int depth, int ply, boolean saveMove,
+                       int sense, int alpha, int beta) {
+        /* We use WINNING_VALUE + depth as the winning value so as to favor
+         * wins that happen sooner rather than later (depth is larger the
+         * fewer moves have been made. */
+        _nodes += 1;
+        if (board.getWinner() != null) {
+            return staticScore(board, WINNING_VALUE + depth);
+        } else if (depth == 0) {
+            return quiesce(board, 0, sense, alpha, beta);
+        }
+
+        long key = board.zobristKey();
+        long entry = _table.probe(key);
+        Move hashMove = TranspositionTable.move(entry);
+        if (saveMove) {
+            hashMove = _lastFoundMove != null ? _lastFoundMove
+                : hashMove != null ? hashMove : _expectedMove;
+        }
+        if (entry != 0 && !saveMove
+            && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), depth);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER && score >= beta)
+                || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                _table.recordCutoff();
+                return score;
+            }
+        }
+
+        Move[] moves = _moves[depth];
+        int n = board.legalMoves(board.whoseMove(), moves);
+        long[] order = _order[depth];
+        if (n == 0) {
+            moves[0] = Move.pass();
+            order[0] = 0;
+            n = 1;
+        } else {
+            orderMoves(board, moves, order, n, hashMove, _killers[ply]);
+        }
+        int alpha0 = alpha, beta0 = beta;
+        boolean prunable = !saveMove && farFromEnd(board, depth);
+        int stand = board.redPieces() - board.bluePieces();
+        int opponentPieces = board.numPieces(board.whoseMove().opposite());
+
+        Move best;
+        best = null;
+        int bestScore = sense == 1 ? -INFTY : INFTY;
+        for (int i = 0; i < n; i += 1) {
+            nextMove(order, i, n);
+            Move move = moves[(int) order[i]];
+            int reduction = 0;
+            if (i > 0 && prunable && depth <= _futility
+                && (depth == 1 || _quiescence == 0)) {
+                int captures = board.captures(move);
+                int gain = 2 * captures + (move.isExtend() ? 1 : 0);
+                int bound = stand + sense * gain;
+                if (captures < opponentPieces
+                    && (sense == 1 ? bound <= alpha : bound >= beta)) {
+                    bestScore = sense == 1 ? max(bestScore, bound)
+                        : min(bestScore, bound);
+                    break;
+                }
+            }
+            if (i >= LATE_MOVES && prunable && depth >= REDUCTION_DEPTH
+                && board.captures(move) == 0
+                && !isKiller(move, _killers[ply])) {
+                reduction = min(_reduction, depth - 2);
+            }
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = minMax(board, depth - 1, ply + 1, false, -sense,
+                               alpha, beta);
+            } else {
+                int low = sense == 1 ? alpha : beta - 1;
+                score = minMax(board, depth - 1 - reduction, ply + 1, false,
+                               -sense, low, low + 1);
+                if (reduction > 0
+                    && (sense == 1 ? score > alpha : score < beta)) {
+                    score = minMax(board, depth - 1, ply + 1, false, -sense,
+                                   low, low + 1);
+                }
+                if (score > alpha && score < beta) {
+                    score = minMax(board, depth - 1, ply + 1, false, -sense,
+                                   alpha, beta);
+                }
+            }
+            board.undo();
+            if (outOfTime()) {
+                return 0;
+            }
+            if (sense == 1 && score > bestScore) {
+                bestScore = score;
+                best = move;
+                alpha = max(alpha, score);
+            } else if (sense == -1 && score < bestScore) {
+                bestScore = score;
+                best = move;
+                beta = min(beta, score);
+            }
+            if (beta <= alpha) {
+                recordCutoff(move, ply, depth);
+                break;
+            }
+        }
+
+        int bound;
+        if (bestScore <= alpha0) {
+            bound = TranspositionTable.UPPER;
+        } else if (bestScore >= beta0) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        _table.store(key, depth, bound, toTable(bestScore, depth), best);
+
+        if (saveMove) {
+            _lastFoundMove = best;
+        }
+        return bestScore;
+    }
+
+    /** Return the value of BOARD, LEVEL moves below the horizon of the
+     *  search, where SENSE, ALPHA, and BETA are as for minMax, as found
+     *  by a quiescence search.  The static value of a position is
+     *  misleading when the player to move can capture many pieces at
+     *  once, so this searches only the moves that capture at least
+     *  QUIESCENCE_CAPTURES pieces, most captures first, to at most
+     *  _quiescence levels, until reaching positions without such
+     *  moves.  The player to move may instead settle for the static
+     *  value ("stand pat"), which is never more than a move would gain,
+     *  so that a static value already outside the window ends the
+     *  search.  Moves that could not reach the window even if unanswered
+     *  are skipped, and the value returned then allows for what they
+     *  would gain, so that it remains a bound on the true value.  As in
+     *  minMax, moves that capture all the opponent's pieces, and all
+     *  moves near the end of the game (see farFromEnd), are never
+     *  skipped, since they may end the game.
+     *  BOARD is unchanged on return, and if time runs out,
+     *  returns at once with a meaningless value. */
+    int quiesce(Board board, int level, int sense,
+                int alpha, int beta) {
+        if (level > 0) {
+            _quiescenceNodes += 1;
+        }
+        int stand = staticScore(board, WINNING_VALUE);
+        if (level == _quiescence || board.getWinner() != null) {
+            return stand;
+        } else if (sense == 1) {
+            if (stand >= beta) {
+                return stand;
+            }
+            alpha = max(alpha, stand);
+        } else {
+            if (stand <= alpha) {
+                return stand;
+            }
+            beta = min(beta, stand);
+        }
+
+        Move[] moves = _quiescenceMoves[level];
+        long[] order = _quiescenceOrder[level];
+        int n = board.legalMoves(board.whoseMove(), moves);
+        int m = 0;
+        for (int i = 0; i < n; i += 1) {
+            int captures = board.captures(moves[i]);
+            if (captures >= QUIESCENCE_CAPTURES) {
+                int gain = 2 * captures + (moves[i].isExtend() ? 1 : 0);
+                order[m] = ((long) -gain << Integer.SIZE) | i;
+                m += 1;
+            }
+        }
+        Arrays.sort(order, 0, m);
+
+        boolean prunable = farFromEnd(board, 1);
+        int opponentPieces = board.numPieces(board.whoseMove().opposite());
+        int bestScore = stand;
+        for (int i = 0; i < m; i += 1) {
+            int gain = (int) -(order[i] >> Integer.SIZE);
+            int bound = stand + sense * gain;
+            if (prunable && gain / 2 < opponentPieces
+                && (sense == 1 ? bound <= alpha : bound >= beta)) {
+                bestScore = sense == 1 ? max(bestScore, bound)
+                    : min(bestScore, bound);
+                break;
+            }
+            board.makeMove(moves[(int) order[i]]);
+            int score = quiesce(board, level + 1, -sense, alpha, beta);
+            board.undo();
+            if (outOfTime()) {
+                return 0;
+            }
+            if (sense == 1 && score > bestScore) {
+                bestScore = score;
+                alpha = max(alpha, score);
+            } else if (sense == -1 && score < bestScore) {
+                bestScore = score;
+                beta = min(beta, score);
+            }
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return bestScore;
+    }
+
+    /** Return true iff BOARD is far enough from the end of the game that
+     *  the search may prune or reduce moves from it, DEPTH levels from
+     *  the horizon: no DEPTH moves can reach the jump limit, and more
+     *  than PRUNE_EMPTIES empty squares remain within reach of some
+     *  piece.  (The latter is only a guess that no few moves can leave
+     *  all the empty squares out of reach.)  Moves that capture all the
+     *  opponent's pieces are checked for separately. */
+    private static boolean farFromEnd(Board board, int depth) {
+        long pieces = board.pieces(PieceColor.RED)
+            | board.pieces(PieceColor.BLUE);
+        return board.numJumps() + depth < Board.JUMP_LIMIT
+            && Long.bitCount(Geometry.reach(pieces) & board.empties())
+               > PRUNE_EMPTIES;
+    }
+
+    /** Return true iff MOVE is one of KILLERS. */
+    private static boolean isKiller(Move move, Move[] killers) {
+        for (Move killer : killers) {
+            if (move == killer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Set ORDER[0 .. N-1] to the indices of the moves MOVES[0 .. N-1]
+     *  from BOARD in the order in which they should be searched, given
+     *  that HASHMOVE (possibly null) is the best move previously found
+     *  for BOARD and KILLERS are the killer moves for its ply.  The best
+     *  move comes first, then moves ordered by the number of pieces they
+     *  capture, with extends before jumps, killers before other moves,
+     *  and otherwise by history count.  Each element of ORDER holds the
+     *  negated ordering key of its move in its upper half, so that
+     *  sorting ORDER sorts the moves.  The sorting itself is left to
+     *  nextMove. */
+    private void orderMoves(Board board, Move[] moves, long[] order, int n,
+                            Move hashMove, Move[] killers) {
+        for (int i = 0; i < n; i += 1) {
+            Move move = moves[i];
+            int key;
+            if (move == hashMove) {
+                key = HASH_MOVE_KEY;
+            } else {
+                key = board.captures(move) << CAPTURE_SHIFT;
+                if (move.isExtend()) {
+                    key += EXTEND_KEY;
+                }
+                if (isKiller(move, killers)) {
+                    key += KILLER_KEY;
+                }
+                key += _history[moveCode(move)];
+            }
+            order[i] = ((long) -key << Integer.SIZE) | i;
+        }
+    }
+
+    /** Given that ORDER[0 .. I-1] are the I least elements of ORDER[0 ..
+     *  N-1] in order, place the next one at ORDER[I].  Selects the first
+     *  SELECTED elements one at a time and sorts the rest only if they
+     *  are needed, since most cutoffs happen at one of the first few
+     *  moves. */
+    private static void nextMove(long[] order, int i, int n) {
+        if (i < SELECTED) {
+            int least = i;
+            for (int j = i + 1; j < n; j += 1) {
+                if (order[j] < order[least]) {
+                    least = j;
+                }
+            }
+            long tmp = order[i];
+            order[i] = order[least];
+            order[least] = tmp;
+        } else if (i == SELECTED) {
+            Arrays.sort(order, i, n);
+        }
+    }
+
+    /** Record that MOVE, made at PLY with DEPTH levels remaining to be
+     *  searched, caused a cutoff.  Halves all the history counts when
+     *  one passes HISTORY_LIMIT, so that they keep their proportions
+     *  without overflowing, however long they accumulate (as they may
+     *  over a long ponder, or over many searches). */
+    private void recordCutoff(Move move, int ply, int depth) {
+        if (move.isPass()) {
+            return;
+        }
+        Move[] killers = _killers[ply];
+        if (killers[0] != move) {
+            System.arraycopy(killers, 0, killers, 1, KILLERS - 1);
+            killers[0] = move;
+        }
+        int code = moveCode(move);
+        _history[code] += depth * depth;
+        if (_history[code] > HISTORY_LIMIT) {
+            for (int i = 0; i < _history.length; i += 1) {
+                _history[i] >>= 1;
+            }
+        }
+    }
+
+    /** Return an index for MOVE, other than a pass, in _history. */
+    private static int moveCode(Move move) {
+        return move.fromIndex() * Geometry.EXTENDED_SQUARES
+            + move.toIndex();
+    }
+
+    /** Return SCORE, the value of a position searched to DEPTH, in the
+     *  form stored in _table.  Winning values count the moves to the win
+     *  from the position itself, rather than from the root of the search,
+     *  so that they remain valid wherever the position recurs. */
+    private static int toTable(int score, int depth) {
+        if (score >= WIN_THRESHOLD) {
+            return score - depth;
+        } else if (score <= -WIN_THRESHOLD) {
+            return score + depth;
+        } else {
+            return score;
+        }
+    }
+
+    /** Return the value of a position to be searched to DEPTH, given the
+     *  value SCORE stored for it in _table.  The inverse of toTable. */
+    private static int fromTable(int score, int depth) {
+        if (score >= WIN_THRESHOLD) {
+            return score + depth;
+        } else if (score <= -WIN_THRESHOLD) {
+            return score - depth;
+        } else {
+            return score;
+        }
+    }
+
+    /** Return a heuristic value for BOARD.  This value is +- WINNINGVALUE in
+     *  won positions, and 0 for ties. */
+    private int staticScore(Board board, int winningValue) {
+        PieceColor winner = board.getWinner();
+        if (winner != null) {
+            return switch (winner) {
+            case RED -> winningValue;
+            case BLUE -> -winningValue;
+            default -> 0;
+            };
+        }
+        return board.redPieces() - board.bluePieces();
+    }
+
+    /** Results of searches, shared with other Searchers. */
+    private final TranspositionTable _table;
+
+    /** The position being searched. */
+    private Board _board;
+
+    /** The depths of the first and last iterations of the search. */
+    private int _firstDepth, _maxDepth;
+
+    /** The reduction of late quiet moves, in plies (see setPruning). */
+    private int _reduction = Defaults.REDUCTION;
+
+    /** The number of levels above the horizon at which moves are pruned
+     *  (see setPruning). */
+    private int _futility = Defaults.FUTILITY;
+
+    /** The maximum number of levels of a quiescence search. */
+    private int _quiescence = Defaults.QUIESCENCE;
+
+    /** Time (as from System.currentTimeMillis) at which the current search
+     *  must stop. */
+    private long _deadline;
+
+    /** True iff stop has been called since the search was set up. */
+    private volatile boolean _stopped;
+
+    /** True iff the current iteration has been abandoned. */
+    private boolean _aborted;
+
+    /** The move found by the last completed iteration. */
+    private Move _lastFoundMove;
+
+    /** A move to try first at the root (see setExpectedMove). */
+    private Move _expectedMove;
+
+    /** Number of positions visited by the current search. */
+    private long _nodes;
+
+    /** Number of positions visited by the quiescence searches of the
+     *  current search. */
+    private long _quiescenceNodes;
+
+    /** Value of nodes() at which outOfTime next checks the clock. */
+    private long _nextCheck;
+
+    /** Depth of the last iteration that the current search completed. */
+    private int _depthReached;
+
+    /** Value found by that iteration. */
+    private int _score;
+
+    /** Move buffers for the search, indexed by remaining depth.  The
+     *  search makes and unmakes moves on a single board, filling these
+     *  rather than building a new Board per child, so that searching
+     *  allocates nothing once they exist. */
+    private final Move[][] _moves;
+
+    /** The orders in which to search the moves in _moves (see
+     *  orderMoves), indexed like _moves. */
+    private final long[][] _order;
+
+    /** Move buffers for quiesce, indexed by level below the horizon. */
+    private final Move[][] _quiescenceMoves;
+
+    /** The orders in which quiesce searches the moves it selects from
+     *  _quiescenceMoves, each a list of capture counts, negated and
+     *  shifted to the upper half, combined with move indices. */
+    private final long[][] _quiescenceOrder;
+
+    /** Moves that recently caused cutoffs, indexed by ply (the number of
+     *  moves from the root). */
+    private final Move[][] _killers;
+
+    /** For each move code, a count of the cutoffs the move has caused,
+     *  weighted by the square of the depth, scaled down (see
+     *  HISTORY_DECAY) at the start of each search so that the current
+     *  search counts most, and at most HISTORY_LIMIT. */
+    private final int[] _history;
+}
@@ -0,0 +1,61 @@
+package ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the Searcher class.
+ *  @author Jerome Rufin
+ */
+public class SearcherTest {
+
+    /** Return the value of BOARD searched to DEPTH by a new Searcher with
+     *  a quiescence search of QUIESCENCE levels, futility pruning at
+     *  FUTILITY levels, and no reductions. */
+    private static int value(Board board, int depth, int quiescence,
+                             int futility) {
+        Searcher searcher = new Searcher(new TranspositionTable(1));
+        searcher.setUp(new Board(board), 1, depth, Long.MAX_VALUE);
+        searcher.setPruning(0, futility);
+        searcher.setQuiescence(quiescence);
+        searcher.run();
+        assertEquals("search incomplete", depth, searcher.depthReached());
+        return searcher.score();
+    }
+
+    @Test
+    public void testFutilityKeepsValue() {
+        for (int quiescence = 0; quiescence <= 2; quiescence += 2) {
+            for (int depth = 2; depth <= 3; depth += 1) {
+                for (String desc : Bench.POSITIONS) {
+                    Board b = Bench.position(desc);
+                    int unpruned = value(b, depth, quiescence, 0);
+                    for (int futility = 1; futility <= 2; futility += 1) {
+                        assertEquals("futility " + futility + " changes the "
+                                     + "depth-" + depth + " value with "
+                                     + "quiescence " + quiescence
+                                     + " in " + desc, unpruned,
+                                     value(b, depth, quiescence, futility));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQuiescenceKeepsWipeOut() {
+        Board b = new Board("bbbbbbb/bbbbbbb/7/7/3b3/2r4/2rrr2 b 0");
+        Searcher searcher = new Searcher(new TranspositionTable(1));
+        searcher.setUp(b, 1, 1, Long.MAX_VALUE);
+        searcher.setQuiescence(2);
+        int value = searcher.quiesce(b, 0, -1, -Integer.MAX_VALUE,
+                                     Integer.MAX_VALUE);
+        assertTrue("blue's wipe-out not found", value < -1000);
+        assertTrue("wipe-out pruned with a narrow window",
+                   searcher.quiesce(b, 0, -1, -30, -29) <= -30);
+        assertEquals("board changed",
+                     "bbbbbbb/bbbbbbb/7/7/3b3/2r4/2rrr2 b 0",
+                     b.toPosition());
+    }
+
+}
@@ -0,0 +1,363 @@
+package ataxx;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** An exact solver for Ataxx endgames: a search to the end of the game
+ *  that finds the final margin (red's pieces minus blue's) with best play
+ *  by both sides, or just its sign (who wins), and a move that achieves
+ *  it.  When few empty squares remain, the static piece difference says
+ *  little about the outcome, and a solver that plays on to the end can do
+ *  better than any fixed-depth search.
+ *
+ *  Jumps do not fill squares, so the game can go on for up to JUMP_LIMIT
+ *  jumps between extends however few empty squares remain, and a solve
+ *  is abandoned once it has visited a given number of positions.  Asking
+ *  only who wins (solveOutcome) gives far more cutoffs than asking for
+ *  the exact margin (solve), and finishes much more often.  The solver
+ *  keeps its results in a transposition table of its own, in which the
+ *  score of every entry is a final margin (or a bound on one), the depth
+ *  of an entry is the number of empty squares in its position, and which
+ *  it keeps from one solve to the next, so that the parts of an
+ *  abandoned solve that were finished still help later ones.  Moves are
+ *  searched in order of the pieces they gain, and among equal gains,
+ *  extends into regions of an odd number of empty squares first, since
+ *  the player who fills the last square of a region tends to keep it.
+ *
+ *  Run on its own, the solver reports its speed.  Usage:
+ *      java ataxx.Solver [ --positions=N ] [ --seed=N ] [ --nodes=N ]
+ *                        [ --exact ] [ MIN [ MAX ] ]
+ *  solves N positions (default 10) with each number of empty squares
+ *  from MAX (default 8) down to MIN (default 1), reached by random moves
+ *  from the initial position, and reports for each number of empty
+ *  squares how many it solved and the average numbers of positions and
+ *  milliseconds a solve took.  A solve is abandoned after --nodes
+ *  positions (default 1000000).  With --exact, it finds final margins;
+ *  otherwise, only who wins.  --seed (default 0) seeds the random
+ *  moves.
+ *  @author Jerome Rufin
+ */
+class Solver {
+
+    /** Value of solve and solveOutcome when the solve was abandoned. */
+    static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /** Default number of positions visited by one solve in main before
+     *  it is abandoned. */
+    static final long REPORT_NODE_LIMIT = 1_000_000;
+
+    /** Run the solver with arguments ARGS, as described above. */
+    public static void main(String[] args) {
+        int positions = 10, min = 1, max = 8;
+        long seed = 0, nodeLimit = REPORT_NODE_LIMIT;
+        boolean exact = false;
+        int numbers = 0;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--positions=")) {
+                    positions = Integer.parseInt(arg.substring(12));
+                } else if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(arg.substring(7));
+                } else if (arg.startsWith("--nodes=")) {
+                    nodeLimit = Long.parseLong(arg.substring(8));
+                } else if (arg.equals("--exact")) {
+                    exact = true;
+                } else if (numbers == 0) {
+                    min = Integer.parseInt(arg);
+                    numbers += 1;
+                } else if (numbers == 1) {
+                    max = Integer.parseInt(arg);
+                    numbers += 1;
+                } else {
+                    throw new IllegalArgumentException();
+                }
+            }
+            if (positions < 1 || nodeLimit < 1 || min < 1 || max < min) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException excp) {
+            System.err.println("Usage: java ataxx.Solver [ --positions=N ]"
+                               + " [ --seed=N ] [ --nodes=N ] [ --exact ]"
+                               + " [ MIN [ MAX ] ]");
+            System.exit(1);
+        }
+
+        Random random = new Random(seed);
+        Solver solver = new Solver(Defaults.HASH_SIZE);
+        System.out.printf("%s solves, at most %d nodes each%n",
+                          exact ? "Margin" : "Outcome", nodeLimit);
+        System.out.printf("Empties  Solved     Avg nodes  Avg msec"
+                          + "  Max msec%n");
+        for (int empties = max; empties >= min; empties -= 1) {
+            long nodes, time, maxTime;
+            nodes = time = maxTime = 0;
+            int solved = 0;
+            for (int k = 0; k < positions; k += 1) {
+                Board board = randomPosition(random, empties);
+                solver.clear();
+                long start = System.nanoTime();
+                int value = exact ? solver.solve(board, nodeLimit)
+                    : solver.solveOutcome(board, nodeLimit);
+                long elapsed = System.nanoTime() - start;
+                if (value != UNKNOWN) {
+                    solved += 1;
+                    nodes += solver.nodes();
+                    time += elapsed;
+                    maxTime = Math.max(maxTime, elapsed);
+                }
+            }
+            System.out.printf("%7d  %3d/%-3d  %12d  %8.1f  %8.1f%n",
+                              empties, solved, positions,
+                              nodes / Math.max(1, solved),
+                              time / 1e6 / Math.max(1, solved),
+                              maxTime / 1e6);
+        }
+    }
+
+    /** Return a position with EMPTIES empty squares in which the game is
+     *  not over, reached by moves chosen with RANDOM from the initial
+     *  position. */
+    static Board randomPosition(Random random, int empties) {
+        Move[] moves = new Move[Board.MAX_MOVES];
+        while (true) {
+            Board board = new Board();
+            while (board.getWinner() == null
+                   && Long.bitCount(board.empties()) > empties) {
+                int n = board.legalMoves(board.whoseMove(), moves);
+                if (n == 0) {
+                    board.pass();
+                } else {
+                    board.makeMove(moves[random.nextInt(n)]);
+                }
+            }
+            if (board.getWinner() == null
+                && Long.bitCount(board.empties()) == empties
+                && board.canMove(board.whoseMove())) {
+                return board;
+            }
+        }
+    }
+
+    /** A new solver whose transposition table uses at most MEGABYTES
+     *  megabytes. */
+    Solver(int megabytes) {
+        _table = new TranspositionTable(megabytes);
+        _moves = new Move[INITIAL_PLIES][];
+        _order = new long[INITIAL_PLIES][];
+    }
+
+    /** Remove all results of earlier solves. */
+    void clear() {
+        _table.clear();
+    }
+
+    /** Return the final margin of the game from BOARD (red's pieces minus
+     *  blue's at the end) with best play, or UNKNOWN if finding it takes
+     *  more than NODELIMIT positions.  BOARD is searched by making and
+     *  undoing moves on it, and is unchanged on return. */
+    int solve(Board board, long nodeLimit) {
+        return solve(board, -Geometry.SQUARES - 1, Geometry.SQUARES + 1,
+                     nodeLimit);
+    }
+
+    /** Return the outcome of the game from BOARD with best play: 1 if red
+     *  wins, -1 if blue wins, and 0 for a draw, or UNKNOWN if finding it
+     *  takes more than NODELIMIT positions.  BOARD is unchanged on
+     *  return. */
+    int solveOutcome(Board board, long nodeLimit) {
+        int value = solve(board, -1, 1, nodeLimit);
+        return value == UNKNOWN ? UNKNOWN : Integer.signum(value);
+    }
+
+    /** Return the final margin of the game from BOARD with best play, as
+     *  for solve(BOARD, NODELIMIT), if it lies strictly between ALPHA and
+     *  BETA, and otherwise a bound on it beyond the one it passes. */
+    private int solve(Board board, int alpha, int beta, long nodeLimit) {
+        _nodes = 0;
+        _nodeLimit = nodeLimit;
+        _aborted = false;
+        _bestMove = null;
+        int sense = board.whoseMove() == PieceColor.RED ? 1 : -1;
+        int value = solve(board, 0, sense, alpha, beta);
+        return _aborted ? UNKNOWN : value;
+    }
+
+    /** Return a move found by the last solve that achieves the value it
+     *  returned (for solveOutcome, the outcome), or null if it was
+     *  abandoned or the game was over. */
+    Move bestMove() {
+        return _aborted ? null : _bestMove;
+    }
+
+    /** Return the number of positions visited by the last solve. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the final margin of the game from BOARD, PLY moves from the
+     *  position being solved, where SENSE is 1 if red is to move and -1
+     *  otherwise.  The value returned is exact if it lies strictly
+     *  between ALPHA and BETA, and otherwise is a bound beyond the one it
+     *  passes.  Sets _bestMove at ply 0.  If the solve is abandoned,
+     *  returns a meaningless value. */
+    private int solve(Board board, int ply, int sense, int alpha, int beta) {
+        _nodes += 1;
+        if (_nodes > _nodeLimit) {
+            _aborted = true;
+        }
+        if (_aborted) {
+            return 0;
+        } else if (board.getWinner() != null) {
+            return board.redPieces() - board.bluePieces();
+        }
+
+        long key = board.zobristKey();
+        long entry = _table.probe(key);
+        if (entry != 0 && ply > 0) {
+            int score = TranspositionTable.score(entry);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER && score >= beta)
+                || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                _table.recordCutoff();
+                return score;
+            }
+        }
+
+        ensurePlies(ply);
+        Move[] moves = _moves[ply];
+        long[] order = _order[ply];
+        int n = board.legalMoves(board.whoseMove(), moves);
+        if (n == 0) {
+            moves[0] = Move.pass();
+            order[0] = 0;
+            n = 1;
+        } else {
+            orderMoves(board, moves, order, n, TranspositionTable.move(entry));
+        }
+
+        int alpha0 = alpha, beta0 = beta;
+        Move best = null;
+        int bestScore = sense == 1 ? -INFTY : INFTY;
+        for (int i = 0; i < n; i += 1) {
+            Move move = moves[(int) order[i]];
+            board.makeMove(move);
+            int score = solve(board, ply + 1, -sense, alpha, beta);
+            board.undo();
+            if (_aborted) {
+                return 0;
+            }
+            if (sense == 1 && score > bestScore) {
+                bestScore = score;
+                best = move;
+                alpha = Math.max(alpha, score);
+            } else if (sense == -1 && score < bestScore) {
+                bestScore = score;
+                best = move;
+                beta = Math.min(beta, score);
+            }
+            if (beta <= alpha) {
+                break;
+            }
+        }
+
+        int bound;
+        if (bestScore <= alpha0) {
+            bound = TranspositionTable.UPPER;
+        } else if (bestScore >= beta0) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        _table.store(key, Long.bitCount(board.empties()), bound, bestScore,
+                     best);
+        if (ply == 0) {
+            _bestMove = best;
+        }
+        return bestScore;
+    }
+
+    /** Set ORDER[0 .. N-1] to the indices of the moves MOVES[0 .. N-1]
+     *  from BOARD in the order in which they should be searched, given
+     *  that HASHMOVE (possibly null) is the best move previously found
+     *  for BOARD: the hash move, then moves by the number of pieces they
+     *  gain, with extends into regions of an odd number of empty squares
+     *  before other moves of the same gain. */
+    private static void orderMoves(Board board, Move[] moves, long[] order,
+                                   int n, Move hashMove) {
+        long odd = oddRegions(board.empties());
+        for (int i = 0; i < n; i += 1) {
+            Move move = moves[i];
+            int key;
+            if (move == hashMove) {
+                key = Integer.MAX_VALUE;
+            } else {
+                key = 2 * board.captures(move);
+                if (move.isExtend()) {
+                    key += 1;
+                }
+                key *= 2;
+                if (move.isExtend()
+                    && (odd & (1L << Geometry.BIT[move.toIndex()])) != 0) {
+                    key += 1;
+                }
+            }
+            order[i] = ((long) -key << Integer.SIZE) | i;
+        }
+        Arrays.sort(order, 0, n);
+    }
+
+    /** Return the union of the regions of EMPTIES (sets of squares
+     *  connected through adjacent squares) that contain an odd number of
+     *  squares. */
+    private static long oddRegions(long empties) {
+        long odd = 0;
+        while (empties != 0) {
+            long region = empties & -empties;
+            long grown = Geometry.grow(region) & empties;
+            while (grown != region) {
+                region = grown;
+                grown = Geometry.grow(region) & empties;
+            }
+            if (Long.bitCount(region) % 2 == 1) {
+                odd |= region;
+            }
+            empties &= ~region;
+        }
+        return odd;
+    }
+
+    /** Make sure that _moves and _order have buffers for PLY. */
+    private void ensurePlies(int ply) {
+        if (ply >= _moves.length) {
+            _moves = Arrays.copyOf(_moves, 2 * _moves.length);
+            _order = Arrays.copyOf(_order, 2 * _order.length);
+        }
+        if (_moves[ply] == null) {
+            _moves[ply] = new Move[Board.MAX_MOVES];
+            _order[ply] = new long[Board.MAX_MOVES];
+        }
+    }
+
+    /** A magnitude greater than any final margin. */
+    private static final int INFTY = Integer.MAX_VALUE;
+    /** Number of plies for which buffers are first allocated. */
+    private static final int INITIAL_PLIES = 64;
+
+    /** Results of solves. */
+    private final TranspositionTable _table;
+    /** Move buffers, indexed by ply. */
+    private Move[][] _moves;
+    /** The orders in which to search the moves in _moves (see
+     *  orderMoves), indexed like _moves. */
+    private long[][] _order;
+    /** Number of positions visited by the current solve. */
+    private long _nodes;
+    /** Number of positions after which the current solve is
+     *  abandoned. */
+    private long _nodeLimit;
+    /** True iff the current solve has been abandoned. */
+    private boolean _aborted;
+    /** Best move found at the root of the current solve. */
+    private Move _bestMove;
+}
@@ -0,0 +1,108 @@
+package ataxx;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the Solver class.
+ *  @author Jerome Rufin
+ */
+public class SolverTest {
+
+    /** Number of positions visited before a solve in these tests is
+     *  abandoned. */
+    private static final long NODE_LIMIT = 100_000;
+
+    /** Return the final margin of the game from BOARD with best play,
+     *  found by a plain minimax search without a transposition table,
+     *  move ordering, or cutoffs.  This is practical only when the game
+     *  is close to the jump limit and few squares are empty. */
+    private static int referenceSolve(Board board) {
+        if (board.getWinner() != null) {
+            return board.redPieces() - board.bluePieces();
+        }
+        Move[] moves = new Move[Board.MAX_MOVES];
+        int n = board.legalMoves(board.whoseMove(), moves);
+        if (n == 0) {
+            board.pass();
+            int value = referenceSolve(board);
+            board.undo();
+            return value;
+        }
+        int sense = board.whoseMove() == PieceColor.RED ? 1 : -1;
+        int best = -Integer.MAX_VALUE;
+        for (int i = 0; i < n; i += 1) {
+            board.makeMove(moves[i]);
+            best = Math.max(best, sense * referenceSolve(board));
+            board.undo();
+        }
+        return sense * best;
+    }
+
+    @Test
+    public void testAgreesWithReference() {
+        Random random = new Random(21);
+        Solver solver = new Solver(1);
+        int checked = 0;
+        for (int k = 0; k < 20; k += 1) {
+            String position = Solver.randomPosition(random, 1).toPosition();
+            position = position.substring(0, position.lastIndexOf(' '))
+                + " " + (Board.JUMP_LIMIT - 4);
+            Board b = new Board(position);
+            int value = solver.solve(b, NODE_LIMIT);
+            assertEquals("board changed", position, b.toPosition());
+            if (value != Solver.UNKNOWN) {
+                assertEquals("wrong margin for " + position,
+                             referenceSolve(b), value);
+                checked += 1;
+            }
+        }
+        assertTrue("too few positions checked", checked > 0);
+    }
+
+    @Test
+    public void testOutcomeAgreesWithMargin() {
+        Random random = new Random(2);
+        Solver solver = new Solver(1);
+        int checked = 0;
+        for (int empties = 1; empties <= 3; empties += 1) {
+            for (int k = 0; k < 10; k += 1) {
+                Board b = Solver.randomPosition(random, empties);
+                String position = b.toPosition();
+                solver.clear();
+                int value = solver.solve(b, NODE_LIMIT);
+                solver.clear();
+                int outcome = solver.solveOutcome(b, NODE_LIMIT);
+                assertEquals("board changed", position, b.toPosition());
+                if (value != Solver.UNKNOWN && outcome != Solver.UNKNOWN) {
+                    assertEquals("wrong outcome for " + position,
+                                 Integer.signum(value), outcome);
+                    checked += 1;
+                }
+            }
+        }
+        assertTrue("too few positions checked", checked > 0);
+    }
+
+    @Test
+    public void testBestMoveKeepsValue() {
+        Random random = new Random(3);
+        Solver solver = new Solver(1);
+        for (int k = 0; k < 10; k += 1) {
+            Board b = Solver.randomPosition(random, 2);
+            int value = solver.solve(b, NODE_LIMIT);
+            if (value != Solver.UNKNOWN) {
+                Move best = solver.bestMove();
+                assertTrue("illegal best move", b.legalMove(best));
+                b.makeMove(best);
+                assertEquals("best move changes margin", value,
+                             solver.solve(b, NODE_LIMIT));
+            } else {
+                assertNull("move from abandoned solve", solver.bestMove());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,385 @@
+package ataxx;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static ataxx.PieceColor.*;
+
+/** A headless tournament between two AI players with different
+ *  settings, for tuning.  The games are played concurrently, each with
+ *  its own Board and AIs, from openings of a few random moves.  Each
+ *  opening is played twice, with the players swapping colors.  At the
+ *  end, the tournament reports the results of the first player (wins,
+ *  draws, losses, and the Elo difference they suggest, with a 95%
+ *  confidence interval), the players' average thinking time per move,
+ *  and the speed of their searches.  Usage:
+ *      java ataxx.Tournament [ --games=N ] [ --concurrency=N ]
+ *                            [ --seed=N ] [ --plies=N ] PLAYER1 PLAYER2
+ *  --games is the number of games (default 100; rounded up to an even
+ *  number), --concurrency the number of games played at once (default:
+ *  one per processor), --seed the seed from which the openings and the
+ *  AIs' seeds are derived (default: random), and --plies the number of
+ *  random moves in each opening (default 4).  Each PLAYER is a
+ *  comma-separated list of settings, any of depth=N (search depth),
+ *  time=MS (time per move, instead of a fixed depth), hash=MB
+ *  (transposition-table size), threads=N (threads per search),
+ *  reduce=N (reduction of late moves), futility=N (levels of futility
+ *  pruning), quiescence=N (levels of quiescence search), endgame=N
+ *  (empty squares at which to try solving the game), proof=N
+ *  (positions to spend trying to prove a win), and mcts=N (choose moves
+ *  by Monte Carlo tree search with N playouts, instead of by alpha-beta
+ *  search), as in "depth=3" or "time=100,hash=4".  Settings not given
+ *  have their usual defaults.  For an MCTS player, the reported nodes
+ *  are playouts.
+ *  @author Jerome Rufin
+ */
+class Tournament {
+
+    /** Run a tournament with arguments ARGS, as described above. */
+    public static void main(String[] args) {
+        int games = 100, plies = 4;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        long seed = (long) (Math.random() * Long.MAX_VALUE);
+        ArrayList<Side> sides = new ArrayList<>();
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--games=")) {
+                    games = Integer.parseInt(arg.substring(8));
+                } else if (arg.startsWith("--concurrency=")) {
+                    concurrency = Integer.parseInt(arg.substring(14));
+                } else if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(arg.substring(7));
+                } else if (arg.startsWith("--plies=")) {
+                    plies = Integer.parseInt(arg.substring(8));
+                } else {
+                    sides.add(new Side(arg));
+                }
+            }
+            if (sides.size() != 2 || games < 1 || concurrency < 1
+                || plies < 0) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | GameException excp) {
+            System.err.println("Usage: java ataxx.Tournament [ --games=N ]"
+                               + " [ --concurrency=N ] [ --seed=N ]");
+            System.err.println("                             [ --plies=N ]"
+                               + " PLAYER1 PLAYER2");
+            System.exit(1);
+        }
+        Tournament tournament =
+            new Tournament(sides.get(0), sides.get(1), seed, plies);
+        System.out.printf("Player 1: %s; player 2: %s%n",
+                          sides.get(0), sides.get(1));
+        System.out.printf("%d games, %d at a time, seed %d, %d-ply "
+                          + "openings%n", games + games % 2, concurrency,
+                          seed, plies);
+        tournament.play(games, concurrency);
+        tournament.report(System.out);
+    }
+
+    /** A tournament between players with settings SIDE1 and SIDE2, whose
+     *  openings consist of PLIES random moves, and whose openings and AI
+     *  seeds are derived from SEED. */
+    Tournament(Side side1, Side side2, long seed, int plies) {
+        _sides = new Side[] { side1, side2 };
+        _seed = seed;
+        _plies = plies;
+    }
+
+    /** Play GAMES games (rounded up to an even number), CONCURRENCY at a
+     *  time, adding their results to my totals. */
+    void play(int games, int concurrency) {
+        int pairs = (games + 1) / 2;
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        ArrayList<Future<Result>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int k = 0; k < pairs; k += 1) {
+                Board opening = opening(_seed + k);
+                for (int first = 0; first < 2; first += 1) {
+                    Board board = new Board(opening);
+                    long seed = _seed + 2 * k + first;
+                    int red = first;
+                    results.add(pool.submit(() -> play(board, red, seed)));
+                }
+            }
+            for (Future<Result> result : results) {
+                add(result.get());
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("tournament game failed", excp);
+        } finally {
+            pool.shutdown();
+        }
+        _wallTime += System.nanoTime() - start;
+    }
+
+    /** Print a summary of my totals on OUT. */
+    void report(PrintStream out) {
+        int games = _wins + _draws + _losses;
+        out.printf("Player 1: %d wins, %d draws, %d losses (%.1f%%)%n",
+                   _wins, _draws, _losses, 100.0 * score());
+        out.printf("Elo difference: %s%n", eloString());
+        for (int p = 0; p < 2; p += 1) {
+            out.printf("Player %d: %.1f msec/move, %d nodes/sec%n",
+                       p + 1, _thinkTime[p] / 1e6 / Math.max(1, _moves[p]),
+                       nps(_nodes[p], _thinkTime[p]));
+        }
+        long nodes = _nodes[0] + _nodes[1];
+        out.printf("Total: %d games, %d nodes, %.1f sec, %d nodes/sec%n",
+                   games, nodes, _wallTime / 1e9, nps(nodes, _wallTime));
+    }
+
+    /** Return the first player's score: the fraction of games won,
+     *  counting a draw as half a win. */
+    double score() {
+        return (_wins + 0.5 * _draws) / Math.max(1, _wins + _draws + _losses);
+    }
+
+    /** Return the Elo rating difference (first player minus second)
+     *  that corresponds to a score of SCORE (which is infinite for a
+     *  score of 0 or 1). */
+    static double elo(double score) {
+        return 400 * Math.log10(score / (1 - score));
+    }
+
+    /** Return the half-width of the 95% confidence interval of the
+     *  first player's score, from the variance of the results of the
+     *  individual games. */
+    double scoreError() {
+        int games = _wins + _draws + _losses;
+        if (games == 0) {
+            return 0;
+        }
+        double s = score();
+        double variance =
+            (_wins * (1 - s) * (1 - s) + _draws * (0.5 - s) * (0.5 - s)
+             + _losses * s * s) / games;
+        return 1.96 * Math.sqrt(variance / games);
+    }
+
+    /** Return a description of the Elo difference between the players
+     *  and its 95% confidence interval. */
+    String eloString() {
+        double s = score(), err = scoreError();
+        String interval = String.format("95%%: %s to %s",
+                                        formatElo(s - err),
+                                        formatElo(s + err));
+        if (s - err <= 0 || s + err >= 1) {
+            return String.format("%s (%s)", formatElo(s), interval);
+        }
+        return String.format("%s +/- %.1f (%s)", formatElo(s),
+                             (elo(s + err) - elo(s - err)) / 2, interval);
+    }
+
+    /** Return the Elo difference corresponding to SCORE, formatted. */
+    private static String formatElo(double score) {
+        if (score <= 0) {
+            return "-inf";
+        } else if (score >= 1) {
+            return "+inf";
+        } else {
+            return String.format("%+.1f", elo(score));
+        }
+    }
+
+    /** Return the number of wins by the first player so far. */
+    int wins() {
+        return _wins;
+    }
+
+    /** Return the number of draws so far. */
+    int draws() {
+        return _draws;
+    }
+
+    /** Return the number of losses by the first player so far. */
+    int losses() {
+        return _losses;
+    }
+
+    /** Return the position after _plies random moves, chosen by a random
+     *  number generator seeded with SEED, from the initial position. */
+    private Board opening(long seed) {
+        Random random = new Random(seed);
+        Board board = new Board();
+        Move[] moves = new Move[Board.MAX_MOVES];
+        for (int i = 0; i < _plies && board.getWinner() == null; i += 1) {
+            int n = board.legalMoves(board.whoseMove(), moves);
+            board.makeMove(n == 0 ? Move.pass() : moves[random.nextInt(n)]);
+        }
+        return board;
+    }
+
+    /** Play a game from BOARD to the end, with _sides[RED] playing red
+     *  and the other side playing blue, each with engines seeded from
+     *  SEED, and return the result. */
+    private Result play(Board board, int red, long seed) {
+        Engine[] engines = new Engine[2];
+        engines[red] = _sides[red].newEngine(RED, seed);
+        engines[1 - red] = _sides[1 - red].newEngine(BLUE, seed + 1);
+        Result result = new Result();
+        while (board.getWinner() == null) {
+            int p = board.whoseMove() == RED ? red : 1 - red;
+            if (!board.canMove(board.whoseMove())) {
+                board.pass();
+            } else {
+                long start = System.nanoTime();
+                Move move = engines[p].findMove(board);
+                result._thinkTime[p] += System.nanoTime() - start;
+                result._nodes[p] += engines[p].nodes();
+                result._moves[p] += 1;
+                board.makeMove(move);
+            }
+        }
+        PieceColor first = red == 0 ? RED : BLUE;
+        if (board.getWinner() == first) {
+            result._score = 2;
+        } else if (board.getWinner() == EMPTY) {
+            result._score = 1;
+        }
+        return result;
+    }
+
+    /** Add RESULT to my totals. */
+    private void add(Result result) {
+        if (result._score == 2) {
+            _wins += 1;
+        } else if (result._score == 1) {
+            _draws += 1;
+        } else {
+            _losses += 1;
+        }
+        for (int p = 0; p < 2; p += 1) {
+            _moves[p] += result._moves[p];
+            _thinkTime[p] += result._thinkTime[p];
+            _nodes[p] += result._nodes[p];
+        }
+    }
+
+    /** Return the number of nodes per second when searching NODES nodes
+     *  takes NANOS nanoseconds. */
+    private static long nps(long nodes, long nanos) {
+        return (long) (nodes * 1e9 / Math.max(1, nanos));
+    }
+
+    /** The settings of one player. */
+    static class Side {
+
+        /** Settings described by SETTINGS, a comma-separated list of
+         *  depth=N, time=MS, hash=MB, threads=N, reduce=N, futility=N,
+         *  quiescence=N, endgame=N, proof=N, and mcts=N (see above). */
+        Side(String settings) {
+            _settings = settings;
+            _game = new Game(null, (b) -> { }, new TextReporter(), false);
+            for (String setting : settings.split(",")) {
+                String[] parts = setting.split("=", 2);
+                int value = parts.length == 2 ? Utils.toInt(parts[1]) : -1;
+                if (value < 0) {
+                    throw GameException.error("bad setting: %s", setting);
+                }
+                switch (parts[0]) {
+                case "depth":
+                    if (value < 1 || value > Searcher.MAX_SEARCH_DEPTH) {
+                        throw GameException.error("bad depth: %d", value);
+                    }
+                    _depth = value;
+                    break;
+                case "time":
+                    _game.setTimeLimit(value);
+                    break;
+                case "hash":
+                    _game.setHashSize(value);
+                    break;
+                case "threads":
+                    _game.setThreads(value);
+                    break;
+                case "reduce":
+                    _game.setReduction(value);
+                    break;
+                case "futility":
+                    _game.setFutility(value);
+                    break;
+                case "quiescence":
+                    _game.setQuiescence(value);
+                    break;
+                case "endgame":
+                    _game.setEndgame(value);
+                    break;
+                case "proof":
+                    _game.setProofNodes(value);
+                    break;
+                case "mcts":
+                    _game.setPlayouts(value);
+                    _mcts = true;
+                    break;
+                default:
+                    throw GameException.error("bad setting: %s", setting);
+                }
+            }
+        }
+
+        /** Return a new engine with my settings playing COLOR, whose seed
+         *  is SEED: an MCTS if I have an mcts setting, and otherwise an
+         *  AI. */
+        Engine newEngine(PieceColor color, long seed) {
+            if (_mcts) {
+                return new MCTS(_game, color, seed);
+            }
+            AI ai = new AI(_game, color, seed);
+            if (_depth > 0) {
+                ai.setDepth(_depth);
+            }
+            return ai;
+        }
+
+        @Override
+        public String toString() {
+            return _settings;
+        }
+
+        /** My settings, as given. */
+        private final String _settings;
+        /** A game holding my time limit, hash size, thread count, and
+         *  pruning settings, which my AIs consult but which is never
+         *  played. */
+        private final Game _game;
+        /** My search depth, or 0 for the default. */
+        private int _depth;
+        /** True iff I choose moves by Monte Carlo tree search. */
+        private boolean _mcts;
+    }
+
+    /** The result of one game. */
+    private static class Result {
+        /** Score of the first player: 2 for a win, 1 for a draw, and 0
+         *  for a loss. */
+        private int _score;
+        /** Numbers of moves chosen by each player (passes excluded). */
+        private int[] _moves = new int[2];
+        /** Nanoseconds spent by each player choosing moves. */
+        private long[] _thinkTime = new long[2];
+        /** Positions searched by each player. */
+        private long[] _nodes = new long[2];
+    }
+
+    /** The players' settings. */
+    private final Side[] _sides;
+    /** Seed from which the openings and AI seeds are derived. */
+    private final long _seed;
+    /** Number of random moves in an opening. */
+    private final int _plies;
+    /** Results of the first player. */
+    private int _wins, _draws, _losses;
+    /** Totals for each player: moves chosen, nanoseconds spent choosing
+     *  them, and positions searched. */
+    private long[] _moves = new long[2], _thinkTime = new long[2],
+        _nodes = new long[2];
+    /** Total elapsed nanoseconds spent playing games. */
+    private long _wallTime;
+}
@@ -0,0 +1,48 @@
+package ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the Tournament class.
+ *  @author Jerome Rufin
+ */
+public class TournamentTest {
+
+    @Test
+    public void testElo() {
+        assertEquals(0.0, Tournament.elo(0.5), 1e-9);
+        assertEquals(190.85, Tournament.elo(0.75), 0.01);
+        assertEquals(-Tournament.elo(0.75), Tournament.elo(0.25), 1e-9);
+    }
+
+    @Test
+    public void testTournament() {
+        Tournament t1 = new Tournament(new Tournament.Side("depth=2"),
+                                       new Tournament.Side("depth=1,hash=1"),
+                                       17, 2);
+        t1.play(3, 2);
+        assertEquals("wrong number of games", 4,
+                     t1.wins() + t1.draws() + t1.losses());
+        Tournament t2 = new Tournament(new Tournament.Side("depth=2"),
+                                       new Tournament.Side("depth=1,hash=1"),
+                                       17, 2);
+        t2.play(4, 1);
+        assertEquals("results not reproducible", t1.wins(), t2.wins());
+        assertEquals("results not reproducible", t1.draws(), t2.draws());
+    }
+
+    @Test
+    public void testBadSettings() {
+        for (String bad : new String[] { "depth", "depth=0", "speed=3",
+                                         "time=-1", "threads=0" }) {
+            try {
+                new Tournament.Side(bad);
+                fail("bad settings accepted: " + bad);
+            } catch (GameException | NumberFormatException excp) {
+                /* Expected. */
+            }
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+package ataxx;
+
+import java.util.Arrays;
+
+/** A fixed-size table of search results for Ataxx positions, indexed by
+ *  Zobrist key (see Board.zobristKey()).  Each entry records the depth to
+ *  which a position was searched, the score found, whether that score is
+ *  exact or only a lower or upper bound, and the best move found.
+ *
+ *  To avoid allocating during a search, entries are packed into longs.
+ *  probe returns such a packed entry (or 0 for none), whose fields are
+ *  extracted with the static methods depth, bound, score, and move.
+ *
+ *  A table may be shared by threads without locking.  Each entry's key
+ *  is stored XORed with its data, and probe accepts an entry only if
+ *  the two still match, so that an entry whose key and data were written
+ *  by different threads (and so belong to different positions) is seen
+ *  as a miss rather than as a wrong result.  The statistics are not
+ *  synchronized, and are approximate when threads share a table.
+ *
+ *  A table may also be kept from one search to the next, since its
+ *  entries hold nothing that depends on where a search started.  Each
+ *  entry records the search (counted by newSearch, modulo 64) that
+ *  stored it, so that entries left by earlier searches, which are mostly
+ *  of positions that can no longer occur, give way to new ones however
+ *  deep they were.
+ *  @author Jerome Rufin
+ */
+class TranspositionTable {
+
+    /** Bound type of an entry whose score is the exact value. */
+    static final int EXACT = 1;
+    /** Bound type of an entry whose score is a lower bound on the value. */
+    static final int LOWER = 2;
+    /** Bound type of an entry whose score is an upper bound on the
+     *  value. */
+    static final int UPPER = 3;
+
+    /** Size in bytes of one entry (its key and its data). */
+    static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+    /** A new, empty table using at most MEGABYTES megabytes (and at
+     *  least one entry).  The number of entries is a power of two. */
+    TranspositionTable(int megabytes) {
+        long entries = Long.highestOneBit(
+            Math.max(1, (long) megabytes * (1 << 20) / ENTRY_SIZE));
+        entries = Math.min(entries, 1 << 30);
+        _keys = new long[(int) entries];
+        _data = new long[(int) entries];
+        _mask = (int) entries - 1;
+    }
+
+    /** Return the number of entries I can hold. */
+    int capacity() {
+        return _keys.length;
+    }
+
+    /** Remove all entries and reset my statistics. */
+    void clear() {
+        Arrays.fill(_keys, 0);
+        Arrays.fill(_data, 0);
+        _used = 0;
+        resetStatistics();
+    }
+
+    /** Note that a new search is starting, so that the entries stored so
+     *  far are from earlier searches, and reset my statistics. */
+    void newSearch() {
+        _age = (_age + 1) & AGE_MASK;
+        resetStatistics();
+    }
+
+    /** Return the packed entry for the position with Zobrist key KEY, or
+     *  0 if there is none. */
+    long probe(long key) {
+        int i = (int) key & _mask;
+        long data = _data[i];
+        _probes += 1;
+        if (data != 0 && (_keys[i] ^ data) == key) {
+            _hits += 1;
+            return data;
+        }
+        return 0;
+    }
+
+    /** Record that the position with Zobrist key KEY has been searched to
+     *  DEPTH, giving SCORE with bound type BOUND (EXACT, LOWER, or UPPER)
+     *  and best move MOVE (which may be null).  An existing entry for a
+     *  different position is replaced only if it was searched no deeper
+     *  than DEPTH or was stored by an earlier search. */
+    void store(long key, int depth, int bound, int score, Move move) {
+        int i = (int) key & _mask;
+        long old = _data[i];
+        if (old == 0) {
+            _used += 1;
+        } else if ((_keys[i] ^ old) != key && depth(old) > depth
+                   && age(old) == _age) {
+            return;
+        }
+        long data = ((long) score << SCORE_SHIFT)
+            | ((long) moveCode(move) << MOVE_SHIFT)
+            | ((long) _age << AGE_SHIFT)
+            | ((long) depth << DEPTH_SHIFT) | bound;
+        _data[i] = data;
+        _keys[i] = key ^ data;
+    }
+
+    /** Note that an entry returned by probe allowed the search to return
+     *  without searching its position. */
+    void recordCutoff() {
+        _cutoffs += 1;
+    }
+
+    /** Return the depth recorded in ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /** Return the search (see newSearch) that stored ENTRY. */
+    private static int age(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) recorded in
+     *  ENTRY. */
+    static int bound(long entry) {
+        return (int) entry & BOUND_MASK;
+    }
+
+    /** Return the score recorded in ENTRY. */
+    static int score(long entry) {
+        return (int) (entry >> SCORE_SHIFT);
+    }
+
+    /** Return the best move recorded in ENTRY, or null if none. */
+    static Move move(long entry) {
+        int code = (int) (entry >>> MOVE_SHIFT) & MOVE_MASK;
+        if (code == 0) {
+            return null;
+        } else if (code == PASS_CODE) {
+            return Move.pass();
+        } else {
+            return Move.move(code >> SQUARE_BITS, code & SQUARE_MASK);
+        }
+    }
+
+    /** Return the code that represents MOVE in an entry. */
+    private static int moveCode(Move move) {
+        if (move == null) {
+            return 0;
+        } else if (move.isPass()) {
+            return PASS_CODE;
+        } else {
+            return (move.fromIndex() << SQUARE_BITS) | move.toIndex();
+        }
+    }
+
+    /** Reset the counts of probes, hits, and cutoffs. */
+    void resetStatistics() {
+        _probes = _hits = _cutoffs = 0;
+    }
+
+    /** Return a one-line summary of my statistics since they were last
+     *  reset. */
+    String statistics() {
+        double probes = Math.max(1, _probes);
+        return String.format("%d probes, %.1f%% hits, %.1f%% misses, "
+                             + "%.1f%% cutoffs, %.1f%% full",
+                             _probes, 100.0 * _hits / probes,
+                             100.0 * (_probes - _hits) / probes,
+                             100.0 * _cutoffs / probes,
+                             100.0 * _used / capacity());
+    }
+
+    /* Layout of an entry: bits 0-1 hold the bound type (never 0 in a
+     * valid entry), bits 2-9 the depth, bits 10-15 the search that stored
+     * it, bits 16-29 the move, and bits 32-63 the score. */
+
+    /** Mask for the bound type. */
+    private static final int BOUND_MASK = 3;
+    /** Position of the depth. */
+    private static final int DEPTH_SHIFT = 2;
+    /** Mask for the depth, once shifted. */
+    private static final int DEPTH_MASK = 0xff;
+    /** Position of the search count. */
+    private static final int AGE_SHIFT = 10;
+    /** Mask for the search count, once shifted. */
+    private static final int AGE_MASK = 0x3f;
+    /** Position of the move. */
+    private static final int MOVE_SHIFT = 16;
+    /** Number of bits in a linearized square index. */
+    private static final int SQUARE_BITS = 7;
+    /** Mask for a linearized square index. */
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+    /** Mask for the move, once shifted. */
+    private static final int MOVE_MASK = (1 << (2 * SQUARE_BITS)) - 1;
+    /** Move code for a pass (from square 0, which is never on the board,
+     *  to square 1). */
+    private static final int PASS_CODE = 1;
+    /** Position of the score. */
+    private static final int SCORE_SHIFT = 32;
+
+    /** Zobrist keys of the positions in the entries, each XORed with the
+     *  entry's data. */
+    private final long[] _keys;
+    /** Packed data for the entries, 0 for an empty entry. */
+    private final long[] _data;
+    /** Mask giving the entry index of a key. */
+    private final int _mask;
+    /** Number of non-empty entries. */
+    private int _used;
+    /** The current search, modulo 64 (see newSearch). */
+    private int _age;
+    /** Statistics: numbers of probes, probes that found an entry, and
+     *  entries that ended a search. */
+    private long _probes, _hits, _cutoffs;
+}
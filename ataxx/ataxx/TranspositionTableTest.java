@@ -0,0 +1,102 @@
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.TranspositionTable.*;
+import static org.junit.Assert.*;
+
+/** Tests of the TranspositionTable class.
+ *  @author Jerome Rufin
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        Move m = Move.move('a', '7', 'c', '5');
+        table.store(12345L, 3, LOWER, -17, m);
+        long entry = table.probe(12345L);
+        assertNotEquals("entry not found", 0, entry);
+        assertEquals("wrong depth", 3, depth(entry));
+        assertEquals("wrong bound", LOWER, bound(entry));
+        assertEquals("wrong score", -17, score(entry));
+        assertSame("wrong move", m, move(entry));
+        assertEquals("found missing entry", 0, table.probe(54321L));
+
+        table.store(99L, 1, EXACT, Integer.MAX_VALUE - 20, Move.pass());
+        entry = table.probe(99L);
+        assertEquals("wrong large score", Integer.MAX_VALUE - 20,
+                     score(entry));
+        assertTrue("wrong pass", move(entry).isPass());
+        table.store(98L, 0, UPPER, 0, null);
+        assertNull("wrong null move", move(table.probe(98L)));
+    }
+
+    @Test
+    public void testDepthPreferred() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key0 = 7L, key1 = key0 + table.capacity();
+        table.store(key0, 4, EXACT, 1, null);
+        table.store(key1, 2, EXACT, 2, null);
+        assertNotEquals("deeper entry replaced", 0, table.probe(key0));
+        assertEquals("shallower entry stored", 0, table.probe(key1));
+        table.store(key1, 5, EXACT, 3, null);
+        assertEquals("deeper entry not stored", 3,
+                     score(table.probe(key1)));
+        table.store(key1, 1, UPPER, 4, null);
+        assertEquals("same position not replaced", 4,
+                     score(table.probe(key1)));
+        table.clear();
+        assertEquals("clear failed", 0, table.probe(key1));
+    }
+
+    @Test
+    public void testOlderSearchReplaced() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key0 = 7L, key1 = key0 + table.capacity();
+        table.store(key0, 4, EXACT, 1, null);
+        table.newSearch();
+        assertEquals("entry lost by new search", 1,
+                     score(table.probe(key0)));
+        table.store(key1, 2, EXACT, 2, null);
+        assertEquals("entry from earlier search kept", 2,
+                     score(table.probe(key1)));
+        table.store(key0, 1, EXACT, 3, null);
+        assertEquals("deeper entry from this search replaced", 2,
+                     score(table.probe(key1)));
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        long[] keys = { 7L, 7L + table.capacity(), 7L + 2 * table.capacity() };
+        Thread[] writers = new Thread[keys.length];
+        for (int k = 0; k < keys.length; k += 1) {
+            long key = keys[k];
+            int score = k + 1;
+            writers[k] = new Thread(() -> {
+                for (int i = 0; i < 200000; i += 1) {
+                    table.store(key, 1, EXACT, score, null);
+                }
+            });
+            writers[k].start();
+        }
+        boolean done;
+        do {
+            done = true;
+            for (Thread writer : writers) {
+                done &= !writer.isAlive();
+            }
+            for (int k = 0; k < keys.length; k += 1) {
+                long entry = table.probe(keys[k]);
+                if (entry != 0) {
+                    assertEquals("entry mixes two positions", k + 1,
+                                 score(entry));
+                }
+            }
+        } while (!done);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+}
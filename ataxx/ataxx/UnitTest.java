@@ -15,7 +15,12 @@ public class UnitTest {
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
         textui.runClasses(CommandTest.class, MoveTest.class,
-                          BoardTest.class);
+                          BoardTest.class, TranspositionTableTest.class,
+                          PerftTest.class, TournamentTest.class,
+                          ConcurrentGamesTest.class, GeometryTest.class,
+                          SolverTest.class, ProofSearchTest.class,
+                          MCTSTest.class, AITest.class,
+                          SearcherTest.class);
     }
 
 }
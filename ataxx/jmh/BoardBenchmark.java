@@ -0,0 +1,111 @@
+package ataxx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** JMH benchmarks of the Board operations used in searching, each in
+ *  the positions described in Positions.  Each operation is one call
+ *  (or, for makeUndo, one move and its undo); the moves used cycle
+ *  through a fixed list so that no single move is favored.
+ *  @author Jerome Rufin
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    /** The position used, in the format of Positions.load.  (JMH sets
+     *  it, once for each of the values listed, and requires it to be
+     *  public.) */
+    @Param({ "test02-1.in:0", "test09-1.in:20", "test11-1.in:40",
+             "test07-1.in:50" })
+    public String position;
+
+    /** Load the position and the moves used in it. */
+    @Setup
+    public void setUp() throws IOException {
+        _board = Positions.load(position);
+        _who = _board.whoseMove();
+        _numMoves = _board.legalMoves(_who, _moves);
+        _candidates = new ArrayList<>();
+        for (int from = 0; from < Board.SIDE * Board.SIDE; from += 1) {
+            for (int to = 0; to < Board.SIDE * Board.SIDE; to += 1) {
+                Move move = Move.move(Geometry.SQUARE[from],
+                                      Geometry.SQUARE[to]);
+                if (move != null && from != to) {
+                    _candidates.add(move);
+                }
+            }
+        }
+    }
+
+    /** Make the next legal move and undo it. */
+    @Benchmark
+    public long makeUndo() {
+        Move move = _moves[_next];
+        _next = (_next + 1) % _numMoves;
+        _board.makeMove(move);
+        long key = _board.zobristKey();
+        _board.undo();
+        return key;
+    }
+
+    /** Check whether the player to move has a move. */
+    @Benchmark
+    public boolean canMove() {
+        return _board.canMove(_who);
+    }
+
+    /** Compute the positions after each legal move. */
+    @Benchmark
+    public HashMap<Move, Board> futureBoards() {
+        return _board.futureBoards(_who);
+    }
+
+    /** Copy the position. */
+    @Benchmark
+    public Board copy() {
+        return new Board(_board);
+    }
+
+    /** Check the legality of the next of all moves of at most two
+     *  squares between squares of the board, most of them illegal. */
+    @Benchmark
+    public boolean legalMove() {
+        Move move = _candidates.get(_nextCandidate);
+        _nextCandidate = (_nextCandidate + 1) % _candidates.size();
+        return _board.legalMove(move);
+    }
+
+    /** The position. */
+    private Board _board;
+    /** The player to move in _board. */
+    private PieceColor _who;
+    /** The legal moves in _board are _moves[0 .. _numMoves-1]. */
+    private Move[] _moves = new Move[Board.MAX_MOVES];
+    /** Number of legal moves in _board. */
+    private int _numMoves;
+    /** Index in _moves of the next move for makeUndo. */
+    private int _next;
+    /** The moves checked by legalMove. */
+    private ArrayList<Move> _candidates;
+    /** Index in _candidates of the next move for legalMove. */
+    private int _nextCandidate;
+}
@@ -0,0 +1,59 @@
+package ataxx;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/** The positions used by the JMH benchmarks, taken from the games in the
+ *  acceptance tests so that they are fixed and realistic.  The
+ *  benchmarks use positions from early, middle, and late in games:
+ *  test02-1.in:0, test09-1.in:20, test11-1.in:40, and test07-1.in:50.
+ *  @author Jerome Rufin
+ */
+class Positions {
+
+    /** Directory holding the acceptance tests, relative to the directory
+     *  in which the benchmarks are run. */
+    static final String TESTING_DIR = "../testing";
+
+    /** Return the position described by SPEC, which has the form
+     *  FILE:PLIES.  This is the position after the blocks and the first
+     *  PLIES legal moves in acceptance test FILE, ignoring illegal moves
+     *  (some tests check that they are rejected) and other commands, and
+     *  stopping at the first AI player or expected output in the test,
+     *  since the moves after that depend on the program tested. */
+    static Board load(String spec) throws IOException {
+        int colon = spec.lastIndexOf(':');
+        int plies = Integer.parseInt(spec.substring(colon + 1));
+        List<String> lines =
+            Files.readAllLines(Paths.get(TESTING_DIR,
+                                         spec.substring(0, colon)));
+        Board board = new Board();
+        for (String line : lines.subList(1, lines.size())) {
+            line = line.trim();
+            if (board.numMoves() == plies || line.startsWith("#*")
+                || line.startsWith("auto") || line.equals("new")
+                || line.equals("quit")) {
+                break;
+            } else if (line.startsWith("block ")) {
+                String square = line.substring(6).trim();
+                if (board.legalBlock(square)) {
+                    board.setBlock(square);
+                }
+            } else {
+                Move move = Move.move(line);
+                if (move != null && board.getWinner() == null
+                    && board.legalMove(move)) {
+                    board.makeMove(move);
+                }
+            }
+        }
+        if (board.numMoves() != plies) {
+            throw new IllegalArgumentException("test has too few moves: "
+                                               + spec);
+        }
+        return board;
+    }
+
+}
@@ -0,0 +1,62 @@
+package ataxx;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** JMH benchmark of the AI's choice of a move, at several depths in the
+ *  positions described in Positions.  Each operation is one complete
+ *  search (findMove clears the transposition table first, so searches
+ *  do not help each other), on one thread and without a time limit.
+ *  @author Jerome Rufin
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    /** The position searched, in the format of Positions.load.  (JMH
+     *  sets it and depth, once for each combination of the values
+     *  listed, and requires them to be public.) */
+    @Param({ "test02-1.in:0", "test09-1.in:20", "test11-1.in:40",
+             "test07-1.in:50" })
+    public String position;
+
+    /** The search depth. */
+    @Param({ "1", "2", "3", "4" })
+    public int depth;
+
+    /** Load the position and create the AI that searches it. */
+    @Setup
+    public void setUp() throws IOException {
+        _board = Positions.load(position);
+        Game game = new Game(null, (b) -> { }, new TextReporter(), false);
+        _ai = new AI(game, _board.whoseMove(), 0);
+        _ai.setDepth(depth);
+    }
+
+    /** Choose a move. */
+    @Benchmark
+    public Move findMove() {
+        return _ai.findMove(_board);
+    }
+
+    /** The position searched. */
+    private Board _board;
+    /** The AI that searches it. */
+    private AI _ai;
+}